@@ -7,6 +7,11 @@ private CrochetProperties() {}
     public static final String TASKGRAPHRUNNER_REMOVE_ASSET_DURATION = "dev.lukebemish.crochet.taskgraphrunner.cache.remove-assets-after";
     public static final String TASKGRAPHRUNNER_REMOVE_OUTPUT_DURATION = "dev.lukebemish.crochet.taskgraphrunner.cache.remove-outputs-after";
     public static final String TASKGRAPHRUNNER_REMOVE_LOCK_DURATION = "dev.lukebemish.crochet.taskgraphrunner.cache.remove-locks-after";
+    public static final String TASKGRAPHRUNNER_CLEAN_INTERVAL = "dev.lukebemish.crochet.taskgraphrunner.cache.clean-interval";
+    public static final String TASKGRAPHRUNNER_MAX_DAEMONS = "dev.lukebemish.crochet.taskgraphrunner.max-daemons";
+    public static final String TASKGRAPHRUNNER_DAEMON_IDLE_TIMEOUT = "dev.lukebemish.crochet.taskgraphrunner.daemon-idle-timeout";
+
+    public static final String REMAP_THREADS = "dev.lukebemish.crochet.remap.threads";
 
     public static final String USE_STUB_GENERATED_MINECRAFT_DEPENDENCIES = "dev.lukebemish.crochet.dependencies.use-stub-generated-minecraft-dependencies";
     public static final String ADD_LIKELY_REPOSITORIES = "dev.lukebemish.crochet.dependencies.add-likely-repositories";
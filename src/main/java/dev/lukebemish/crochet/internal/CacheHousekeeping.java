@@ -0,0 +1,141 @@
+package dev.lukebemish.crochet.internal;
+
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Defers marking and cleaning a taskgraphrunner cache, which is slow on a large cache, so that it happens at most once
+ * per interval instead of at the end of every build. Builds append the task records they used to a journal kept in the
+ * cache; whichever build finds housekeeping due claims the journal, and then marks every record in it before cleaning.
+ * All state lives in the cache itself, behind a file lock, so that separate Gradle daemons sharing a cache cooperate;
+ * within one JVM, each cache directory is also guarded by its own monitor, as file locks are held per process.
+ */
+final class CacheHousekeeping {
+    private CacheHousekeeping() {}
+
+    private static final String DIRECTORY = "crochet";
+    private static final String LOCK = "housekeeping.lock";
+    private static final String JOURNAL = "task-records.journal";
+    private static final String LAST_CLEAN = "last-clean";
+
+    /**
+     * Housekeeping claimed for a cache.
+     * @param taskRecords the journaled task records that still exist
+     * @param previousClean when the cache was last cleaned before this claim, if ever
+     */
+    record Claim(List<Path> taskRecords, @Nullable FileTime previousClean) {}
+
+    // One per cache directory, so that housekeeping for separate caches is not serialized
+    private static final Map<Path, Object> MONITORS = new ConcurrentHashMap<>();
+
+    /**
+     * Records that the given task records were used, so that they are marked next time the cache is cleaned.
+     */
+    static void journal(Path cacheDir, Collection<Path> taskRecords) throws IOException {
+        if (taskRecords.isEmpty()) {
+            return;
+        }
+        var directory = directory(cacheDir);
+        var lines = new StringBuilder();
+        for (var record : taskRecords) {
+            lines.append(record.toAbsolutePath()).append('\n');
+        }
+        synchronized (monitor(directory)) {
+            try (var ignored = lock(directory)) {
+                Files.writeString(directory.resolve(JOURNAL), lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+            }
+        }
+    }
+
+    /**
+     * If the cache was last cleaned longer ago than the given interval, claims housekeeping for it, emptying the journal.
+     * If housekeeping then fails, the claim should be given up with {@link #release(Path, Claim)}.
+     * @return the claim, or {@code null} if housekeeping is not due
+     */
+    static @Nullable Claim claim(Path cacheDir, Duration interval) throws IOException {
+        var directory = directory(cacheDir);
+        var lastClean = directory.resolve(LAST_CLEAN);
+        var journal = directory.resolve(JOURNAL);
+        var records = new LinkedHashSet<Path>();
+        FileTime previousClean = null;
+        synchronized (monitor(directory)) {
+            try (var ignored = lock(directory)) {
+                var now = Instant.now();
+                if (Files.exists(lastClean) && Files.getLastModifiedTime(lastClean).toInstant().plus(interval).isAfter(now)) {
+                    return null;
+                }
+                if (Files.exists(journal)) {
+                    for (var line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+                        if (!line.isBlank()) {
+                            records.add(Path.of(line));
+                        }
+                    }
+                    Files.delete(journal);
+                }
+                // Stamped up front, so that concurrent builds do not also start cleaning
+                if (Files.exists(lastClean)) {
+                    previousClean = Files.getLastModifiedTime(lastClean);
+                } else {
+                    Files.createFile(lastClean);
+                }
+                Files.setLastModifiedTime(lastClean, FileTime.from(now));
+            }
+        }
+        // A journal covering many builds can be long; the checks are independent
+        return new Claim(records.parallelStream().filter(Files::exists).toList(), previousClean);
+    }
+
+    /**
+     * Gives up a claim after housekeeping failed or could not run: its task records are journaled again, and the time of
+     * the last clean is put back, so that the next build to finish tries again instead of waiting out another interval.
+     */
+    static void release(Path cacheDir, Claim claim) throws IOException {
+        journal(cacheDir, claim.taskRecords());
+        var directory = directory(cacheDir);
+        var lastClean = directory.resolve(LAST_CLEAN);
+        synchronized (monitor(directory)) {
+            try (var ignored = lock(directory)) {
+                if (claim.previousClean() == null) {
+                    Files.deleteIfExists(lastClean);
+                } else if (Files.exists(lastClean)) {
+                    Files.setLastModifiedTime(lastClean, claim.previousClean());
+                }
+            }
+        }
+    }
+
+    private static Path directory(Path cacheDir) throws IOException {
+        var directory = cacheDir.resolve(DIRECTORY);
+        Files.createDirectories(directory);
+        return directory;
+    }
+
+    private static Object monitor(Path directory) {
+        return MONITORS.computeIfAbsent(directory.toAbsolutePath().normalize(), k -> new Object());
+    }
+
+    private static FileChannel lock(Path directory) throws IOException {
+        var channel = FileChannel.open(directory.resolve(LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            channel.lock();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+}
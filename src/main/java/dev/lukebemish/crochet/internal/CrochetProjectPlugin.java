@@ -1,6 +1,7 @@
 package dev.lukebemish.crochet.internal;
 
 import dev.lukebemish.crochet.CrochetProperties;
+import dev.lukebemish.crochet.internal.tasks.CrochetPerfReport;
 import dev.lukebemish.crochet.model.CrochetExtension;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
@@ -11,13 +12,19 @@
 import org.gradle.api.attributes.java.TargetJvmVersion;
 import org.gradle.api.logging.configuration.ShowStacktrace;
 import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.build.event.BuildEventsListenerRegistry;
 
-public class CrochetProjectPlugin implements Plugin<Project> {
+import javax.inject.Inject;
+import java.util.Map;
+
+public abstract class CrochetProjectPlugin implements Plugin<Project> {
     public static final String TASK_GRAPH_RUNNER_CONFIGURATION_NAME = "_crochetTaskGraphRunnerClasspath";
     public static final String TASK_GRAPH_RUNNER_TOOLS_CONFIGURATION_NAME = "_crochetTaskGraphRunnerToolsClasspath";
     public static final String DEV_LAUNCH_CONFIGURATION_NAME = "_crochetDevLaunch";
     public static final String TERMINAL_CONSOLE_APPENDER_CONFIGURATION_NAME = "_crochetTerminalConsoleAppender";
 
+    public static final String PERF_REPORT_TASK_NAME = "crochetPerfReport";
+
     public static final String VERSION = CrochetProjectPlugin.class.getPackage().getImplementationVersion();
 
     public static final Attribute<String> NEO_DISTRIBUTION_ATTRIBUTE = Attribute.of("net.neoforged.distribution", String.class);
@@ -31,6 +38,12 @@ public class CrochetProjectPlugin implements Plugin<Project> {
     // Dependencies on other projects non-remapped components
     public static final String CROCHET_REMAP_TYPE_NON_REMAP = "not-to-remap";
 
+    @Inject
+    public CrochetProjectPlugin() {}
+
+    @Inject
+    protected abstract BuildEventsListenerRegistry getBuildEventsListenerRegistry();
+
     @Override
     public void apply(Project project) {
         if (project.getProviders().gradleProperty(CrochetProperties.ADD_LIKELY_REPOSITORIES).map(Boolean::parseBoolean).orElse(true).get()) {
@@ -127,9 +140,38 @@ public void apply(Project project) {
             spec.getParameters().getRemoveUnusedAssetsAfterDays().convention(project.getProviders().gradleProperty(CrochetProperties.TASKGRAPHRUNNER_REMOVE_ASSET_DURATION).map(Integer::parseInt).orElse(30));
             spec.getParameters().getRemoveUnusedOutputsAfterDays().convention(project.getProviders().gradleProperty(CrochetProperties.TASKGRAPHRUNNER_REMOVE_OUTPUT_DURATION).map(Integer::parseInt).orElse(30));
             spec.getParameters().getRemoveUnusedLocksAfterDays().convention(project.getProviders().gradleProperty(CrochetProperties.TASKGRAPHRUNNER_REMOVE_LOCK_DURATION).map(Integer::parseInt).orElse(1));
+            spec.getParameters().getCleanIntervalHours().convention(project.getProviders().gradleProperty(CrochetProperties.TASKGRAPHRUNNER_CLEAN_INTERVAL).map(Integer::parseInt).orElse(24));
+            spec.getParameters().getMaxDaemons().convention(project.getProviders().gradleProperty(CrochetProperties.TASKGRAPHRUNNER_MAX_DAEMONS).map(Integer::parseInt));
+            spec.getParameters().getDaemonIdleTimeoutMinutes().convention(project.getProviders().gradleProperty(CrochetProperties.TASKGRAPHRUNNER_DAEMON_IDLE_TIMEOUT).map(Integer::parseInt));
+        });
+
+        setupPerfReport(project);
+    }
+
+    private void setupPerfReport(Project project) {
+        var sharedServices = project.getGradle().getSharedServices();
+        boolean firstProject = sharedServices.getRegistrations().findByName(CrochetTaskEventsService.NAME) == null;
+        var taskEvents = sharedServices.registerIfAbsent(CrochetTaskEventsService.NAME, CrochetTaskEventsService.class, spec -> {});
+        // Once per build, and only when the report will run, so that other builds do not pay for recording every task
+        if (firstProject && isPerfReportRequested(project)) {
+            getBuildEventsListenerRegistry().onTaskCompletion(taskEvents);
+        }
+
+        project.getTasks().register(PERF_REPORT_TASK_NAME, CrochetPerfReport.class, task -> {
+            task.setGroup("crochet setup");
+            task.setDescription("Reports what crochet's tasks cost over the current build.");
+            task.getProjectPath().set(project.getPath());
+            task.getOutputDirectory().convention(project.getLayout().getBuildDirectory().dir("reports/crochet/perf"));
+            // Report on whatever else crochet runs in the same build
+            task.mustRunAfter(task.getTaskOwners().map(Map::keySet));
         });
     }
 
+    private static boolean isPerfReportRequested(Project project) {
+        return project.getGradle().getStartParameter().getTaskNames().stream()
+            .anyMatch(name -> name.equals(PERF_REPORT_TASK_NAME) || name.endsWith(":" + PERF_REPORT_TASK_NAME));
+    }
+
     private static void setupConventionalConfigurations(Project project) {
         var sourceSets = project.getExtensions().getByType(SourceSetContainer.class);
         sourceSets.configureEach(sourceSet -> {
@@ -0,0 +1,72 @@
+package dev.lukebemish.crochet.internal;
+
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.tooling.events.FinishEvent;
+import org.gradle.tooling.events.OperationCompletionListener;
+import org.gradle.tooling.events.task.TaskFailureResult;
+import org.gradle.tooling.events.task.TaskFinishEvent;
+import org.gradle.tooling.events.task.TaskSkippedResult;
+import org.gradle.tooling.events.task.TaskSuccessResult;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects how long each task of the build took and whether it did any work, for the crochet performance report.
+ */
+public abstract class CrochetTaskEventsService implements BuildService<BuildServiceParameters.None>, OperationCompletionListener {
+    public static final String NAME = "crochetTaskEvents";
+
+    public enum Outcome {
+        EXECUTED,
+        UP_TO_DATE,
+        FROM_CACHE,
+        SKIPPED,
+        FAILED;
+
+        /**
+         * {@return whether a task with this outcome reused earlier work, or {@code null} if it did not run at all}
+         */
+        public @Nullable Boolean isHit() {
+            return switch (this) {
+                case UP_TO_DATE, FROM_CACHE -> true;
+                case EXECUTED, FAILED -> false;
+                case SKIPPED -> null;
+            };
+        }
+    }
+
+    public record TaskEvent(String path, long startTime, long endTime, Outcome outcome) {
+        public long durationMillis() {
+            return endTime - startTime;
+        }
+    }
+
+    private final List<TaskEvent> events = new ArrayList<>();
+
+    @Override
+    public void onFinish(FinishEvent event) {
+        if (event instanceof TaskFinishEvent taskEvent) {
+            var result = taskEvent.getResult();
+            var outcome = switch (result) {
+                case TaskSuccessResult success when success.isFromCache() -> Outcome.FROM_CACHE;
+                case TaskSuccessResult success when success.isUpToDate() -> Outcome.UP_TO_DATE;
+                case TaskSuccessResult ignored -> Outcome.EXECUTED;
+                case TaskSkippedResult ignored -> Outcome.SKIPPED;
+                case TaskFailureResult ignored -> Outcome.FAILED;
+                default -> Outcome.EXECUTED;
+            };
+            synchronized (events) {
+                events.add(new TaskEvent(taskEvent.getDescriptor().getTaskPath(), result.getStartTime(), result.getEndTime(), outcome));
+            }
+        }
+    }
+
+    public List<TaskEvent> events() {
+        synchronized (events) {
+            return List.copyOf(events);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package dev.lukebemish.crochet.internal;
+
+import dev.lukebemish.taskgraphrunner.daemon.DaemonExecutor;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Idle taskgraphrunner daemons kept alive between builds run by the same Gradle daemon, so that later builds skip
+ * starting and warming up a new JVM. Daemons are keyed by everything they were started with, and are closed once left
+ * idle for longer than their timeout, or when the JVM exits. The registry belongs to the classloader crochet was loaded
+ * in, so daemons parked by an earlier copy of the plugin are left to its reaper; the shutdown hook is only registered
+ * while daemons are parked, so that it does not keep an unused classloader alive.
+ */
+final class PersistentDaemons {
+    private PersistentDaemons() {}
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentDaemons.class);
+
+    // idleSince keeps a daemon given back after being taken distinct from its earlier entry, whose reaper is still pending
+    private record Idle(DaemonExecutor executor, long idleSince) {}
+
+    private static final Map<String, Deque<Idle>> IDLE = new HashMap<>();
+    private static final ScheduledThreadPoolExecutor REAPER;
+    private static final Thread SHUTDOWN_HOOK = new Thread(PersistentDaemons::closeAll, "crochet-taskgraphrunner-daemon-shutdown");
+    private static boolean hookRegistered;
+
+    static {
+        REAPER = new ScheduledThreadPoolExecutor(1, runnable -> {
+            var thread = new Thread(runnable, "crochet-taskgraphrunner-daemon-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Don't hold a thread, or this class, alive while nothing is waiting to be reaped
+        REAPER.setKeepAliveTime(1, TimeUnit.MINUTES);
+        REAPER.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * {@return an idle daemon started with the given key, removing it from the registry, or {@code null} if there is none}
+     */
+    static synchronized @Nullable DaemonExecutor take(String key) {
+        var idle = IDLE.get(key);
+        if (idle == null) {
+            return null;
+        }
+        // The most recently used daemon is the warmest
+        var entry = idle.pollLast();
+        if (idle.isEmpty()) {
+            IDLE.remove(key);
+            updateShutdownHook();
+        }
+        return entry == null ? null : entry.executor();
+    }
+
+    static synchronized void give(String key, DaemonExecutor executor, Duration idleTimeout) {
+        var entry = new Idle(executor, System.nanoTime());
+        IDLE.computeIfAbsent(key, k -> new ArrayDeque<>()).addLast(entry);
+        updateShutdownHook();
+        REAPER.schedule(() -> reap(key, entry), idleTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private static void reap(String key, Idle entry) {
+        synchronized (PersistentDaemons.class) {
+            var idle = IDLE.get(key);
+            // If it is no longer present, it was taken by a later build
+            if (idle == null || !idle.remove(entry)) {
+                return;
+            }
+            if (idle.isEmpty()) {
+                IDLE.remove(key);
+                updateShutdownHook();
+            }
+        }
+        close(entry.executor());
+    }
+
+    // Must be called while synchronized on this class
+    private static void updateShutdownHook() {
+        try {
+            if (IDLE.isEmpty() && hookRegistered) {
+                Runtime.getRuntime().removeShutdownHook(SHUTDOWN_HOOK);
+                hookRegistered = false;
+            } else if (!IDLE.isEmpty() && !hookRegistered) {
+                Runtime.getRuntime().addShutdownHook(SHUTDOWN_HOOK);
+                hookRegistered = true;
+            }
+        } catch (IllegalStateException e) {
+            // The JVM is already shutting down, and the hook has run or is running
+        }
+    }
+
+    private static void closeAll() {
+        List<Idle> all = new ArrayList<>();
+        synchronized (PersistentDaemons.class) {
+            IDLE.values().forEach(all::addAll);
+            IDLE.clear();
+        }
+        all.forEach(entry -> close(entry.executor()));
+    }
+
+    private static void close(DaemonExecutor executor) {
+        try {
+            executor.close();
+        } catch (Exception e) {
+            LOGGER.warn("Failed to close idle taskgraphrunner daemon", e);
+        }
+    }
+}
@@ -7,76 +7,284 @@
 import org.gradle.api.services.BuildServiceParameters;
 import org.gradle.api.tasks.Optional;
 import org.gradle.jvm.toolchain.JavaLauncher;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
 
 public abstract class TaskGraphRunnerService implements BuildService<TaskGraphRunnerService.Params>, AutoCloseable {
     public static final String LOG_LEVEL_PROPERTY = "org.slf4j.simpleLogger.defaultLogLevel";
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskGraphRunnerService.class);
+    private static final int TELEMETRY_SUMMARY_TASKS = 5;
+
     @Override
     public void close() {
         synchronized (this) {
-            if (daemon != null) {
-                List<Throwable> suppressed = new ArrayList<>();
+            List<Throwable> suppressed = Collections.synchronizedList(new ArrayList<>());
+            var interval = Duration.ofHours(Math.max(0, getParameters().getCleanIntervalHours().get()));
+            Map<Path, CacheHousekeeping.Claim> due = new ConcurrentHashMap<>();
+            // Single-use caches are deleted by the tasks that used them, and need no housekeeping
+            cacheDirs.stream().filter(Files::isDirectory).toList().parallelStream().forEach(cacheDir -> {
                 try {
-                    for (var taskRecord : taskRecordJsons.entrySet()) {
-                        if (Files.exists(taskRecord.getKey().toAbsolutePath())) {
-                            var args = new ArrayList<String>();
-                            args.add("--cache-dir=" + taskRecord.getKey().toAbsolutePath());
-                            args.add("mark");
-                            for (var record : taskRecord.getValue()) {
-                                if (Files.exists(record)) {
-                                    args.add(record.toAbsolutePath().toString());
-                                }
-                            }
-                            daemon.execute(args.toArray(String[]::new));
-                        }
-                    }
-                    for (var cacheDir : cacheDirs) {
-                        var args = new ArrayList<String>();
-                        args.add("--cache-dir=" + cacheDir.toAbsolutePath());
-                        args.add("clean");
-                        args.add("--asset-duration=" + getParameters().getRemoveUnusedAssetsAfterDays().get());
-                        args.add("--output-duration=" + getParameters().getRemoveUnusedOutputsAfterDays().get());
-                        args.add("--lock-duration=" + getParameters().getRemoveUnusedLocksAfterDays().get());
-                        daemon.execute(args.toArray(String[]::new));
+                    // Marking is deferred to whichever build next cleans the cache, so all that happens here is
+                    // recording the task records used, unless this build is the one to clean
+                    CacheHousekeeping.journal(cacheDir, taskRecordJsons.getOrDefault(cacheDir, List.of()));
+                    var claim = CacheHousekeeping.claim(cacheDir, interval);
+                    if (claim != null) {
+                        due.put(cacheDir, claim);
                     }
                 } catch (Throwable t) {
                     suppressed.add(t);
                 }
+            });
+            if (!due.isEmpty()) {
                 try {
-                    daemon.close();
-                    daemon = null;
+                    housekeep(due);
                 } catch (Throwable t) {
                     suppressed.add(t);
                 }
-                if (!suppressed.isEmpty()) {
-                    var e = new RuntimeException("Failed to close daemon", suppressed.getFirst());
-                    if (suppressed.size() > 1) {
-                        for (var t : suppressed.subList(1, suppressed.size())) {
-                            e.addSuppressed(t);
-                        }
+            }
+            logTelemetrySummary();
+            var idleTimeout = idleTimeout();
+            for (var pooled : daemons) {
+                try {
+                    if (idleTimeout != null) {
+                        // Kept running for later builds in this Gradle daemon, until left idle for too long
+                        PersistentDaemons.give(pooled.key, pooled.executor, idleTimeout);
+                    } else {
+                        pooled.executor.close();
                     }
-                    throw e;
+                } catch (Throwable t) {
+                    suppressed.add(t);
+                }
+            }
+            daemons.clear();
+            if (!suppressed.isEmpty()) {
+                var e = new RuntimeException("Failed to close daemon", suppressed.getFirst());
+                if (suppressed.size() > 1) {
+                    for (var t : suppressed.subList(1, suppressed.size())) {
+                        e.addSuppressed(t);
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void housekeep(Map<Path, CacheHousekeeping.Claim> due) throws IOException {
+        Lease existing = null;
+        synchronized (daemons) {
+            if (!daemons.isEmpty()) {
+                // Housekeeping only needs one daemon, which runs the caches' requests concurrently
+                var pooled = daemons.getFirst();
+                pooled.leases++;
+                existing = new Lease(pooled);
+            }
+        }
+        Lease daemon;
+        try {
+            if (existing != null) {
+                daemon = existing;
+            } else if (housekeepingLauncher != null && housekeepingJarPath != null) {
+                // Only now is a daemon worth starting, for a build that ran nothing itself
+                daemon = lease(housekeepingLauncher, housekeepingJarPath);
+            } else {
+                // Nothing to clean with; try again next build
+                for (var entry : due.entrySet()) {
+                    CacheHousekeeping.release(entry.getKey(), entry.getValue());
+                }
+                return;
+            }
+        } catch (RuntimeException e) {
+            for (var entry : due.entrySet()) {
+                try {
+                    CacheHousekeeping.release(entry.getKey(), entry.getValue());
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+        try (daemon) {
+            if (due.size() == 1) {
+                var entry = due.entrySet().iterator().next();
+                housekeep(daemon, entry.getKey(), entry.getValue());
+                return;
+            }
+            var executor = Executors.newFixedThreadPool(Math.min(due.size(), Runtime.getRuntime().availableProcessors()));
+            try {
+                var futures = due.entrySet().stream()
+                    .map(entry -> CompletableFuture.runAsync(() -> housekeep(daemon, entry.getKey(), entry.getValue()), executor))
+                    .toList();
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private void housekeep(Lease daemon, Path cacheDir, CacheHousekeeping.Claim claim) {
+        var taskRecords = claim.taskRecords();
+        try {
+            if (!taskRecords.isEmpty()) {
+                var args = new ArrayList<String>();
+                args.add("--cache-dir=" + cacheDir.toAbsolutePath());
+                args.add("mark");
+                for (var record : taskRecords) {
+                    args.add(record.toAbsolutePath().toString());
                 }
+                daemon.execute(args.toArray(String[]::new));
             }
+            var args = new ArrayList<String>();
+            args.add("--cache-dir=" + cacheDir.toAbsolutePath());
+            args.add("clean");
+            args.add("--asset-duration=" + getParameters().getRemoveUnusedAssetsAfterDays().get());
+            args.add("--output-duration=" + getParameters().getRemoveUnusedOutputsAfterDays().get());
+            args.add("--lock-duration=" + getParameters().getRemoveUnusedLocksAfterDays().get());
+            daemon.execute(args.toArray(String[]::new));
+        } catch (Throwable t) {
+            // Keep the records for the next clean, so that their outputs are not removed for lack of a mark, and let the
+            // next build try again
+            try {
+                CacheHousekeeping.release(cacheDir, claim);
+            } catch (IOException e) {
+                t.addSuppressed(e);
+            }
+            throw t;
         }
     }
 
-    private DaemonExecutor daemon;
+    private void logTelemetrySummary() {
+        if (telemetry.isEmpty() || !LOGGER.isInfoEnabled()) {
+            return;
+        }
+        var sorted = new ArrayList<>(telemetry);
+        sorted.sort(Comparator.comparingLong(TaskGraphTelemetry::totalMillis).reversed());
+        long config = 0;
+        long lease = 0;
+        long execute = 0;
+        for (var entry : sorted) {
+            config += entry.configMillis();
+            lease += entry.leaseMillis();
+            execute += entry.executeMillis();
+        }
+        var summary = new StringBuilder();
+        summary.append("Ran ").append(sorted.size()).append(" task graph(s) in ").append(config + lease + execute).append("ms: ")
+            .append(config).append("ms making configs, ")
+            .append(lease).append("ms waiting for daemons, ")
+            .append(execute).append("ms running graphs");
+        for (var entry : sorted.subList(0, Math.min(TELEMETRY_SUMMARY_TASKS, sorted.size()))) {
+            summary.append("\n  ").append(entry.task()).append(": ").append(entry.totalMillis()).append("ms (")
+                .append(entry.executeMillis()).append("ms running ").append(entry.nodeTypes()).append(")");
+        }
+        LOGGER.info(summary.toString());
+    }
+
+    private static final class PooledDaemon {
+        private final String key;
+        private final String javaExecutable;
+        private final List<String> jvmOptions;
+        private final DaemonExecutor executor;
+        // Taken from an earlier build, and not yet known to still be alive
+        private boolean unproven;
+        private @Nullable PooledDaemon replacement;
+        private int leases;
+
+        private PooledDaemon(String key, String javaExecutable, List<String> jvmOptions, DaemonExecutor executor) {
+            this.key = key;
+            this.javaExecutable = javaExecutable;
+            this.jvmOptions = jvmOptions;
+            this.executor = executor;
+        }
+    }
+
+    /**
+     * A daemon handed out by {@link #lease(JavaLauncher, String)}; closing the lease hands it back to the pool.
+     */
+    public final class Lease implements AutoCloseable {
+        private PooledDaemon daemon;
+        private boolean released;
+
+        private Lease(PooledDaemon daemon) {
+            this.daemon = daemon;
+        }
+
+        /**
+         * Runs the given arguments on the leased daemon. A daemon kept from an earlier build may have died while idle,
+         * so if one fails before it has run anything in this build, it is replaced by a fresh daemon and the arguments
+         * are run again.
+         */
+        public void execute(String[] args) {
+            PooledDaemon used;
+            synchronized (daemons) {
+                used = daemon;
+            }
+            try {
+                used.executor.execute(args);
+            } catch (RuntimeException e) {
+                PooledDaemon fresh;
+                synchronized (daemons) {
+                    if (!used.unproven) {
+                        throw e;
+                    }
+                    fresh = replace(used);
+                    fresh.leases++;
+                    used.leases--;
+                    daemon = fresh;
+                }
+                LOGGER.info("Retrying with a fresh taskgraphrunner daemon, as one kept from an earlier build failed", e);
+                fresh.executor.execute(args);
+                return;
+            }
+            synchronized (daemons) {
+                used.unproven = false;
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (daemons) {
+                if (!released) {
+                    released = true;
+                    daemon.leases--;
+                    // Another lease may be waiting for room in the pool
+                    daemons.notifyAll();
+                }
+            }
+        }
+    }
+
+    private final List<PooledDaemon> daemons = new ArrayList<>();
+
+    private @Nullable JavaLauncher housekeepingLauncher;
+    private @Nullable String housekeepingJarPath;
 
     private final Map<Path, List<Path>> taskRecordJsons = new ConcurrentHashMap<>();
 
     private final Set<Path> cacheDirs = ConcurrentHashMap.newKeySet();
 
+    private final List<TaskGraphTelemetry> telemetry = Collections.synchronizedList(new ArrayList<>());
+
+    public void addTelemetry(TaskGraphTelemetry entry) {
+        telemetry.add(entry);
+    }
+
     public void addTaskRecordJson(Path cacheDir, Path taskRecordJson) {
         taskRecordJsons.computeIfAbsent(cacheDir.toAbsolutePath(), k -> new ArrayList<>()).add(taskRecordJson.toAbsolutePath());
         addCacheDir(cacheDir);
@@ -86,44 +294,157 @@ public void addCacheDir(Path cacheDir) {
         cacheDirs.add(cacheDir.toAbsolutePath());
     }
 
-    public DaemonExecutor start(JavaLauncher javaLauncher, String jarPath) {
-        synchronized (this) {
-            if (daemon == null) {
-                daemon = new DaemonExecutor(processConfiguration -> {
-                    processConfiguration.javaExecutable(javaLauncher.getExecutablePath().toString());
-
-                    List<String> args = new ArrayList<>();
-                    Map<String, String> properties = new LinkedHashMap<>(PropertiesUtils.networkProperties(getProviders()).get());
-                    properties.put("stdout.encoding", "UTF-8");
-                    properties.put("stderr.encoding", "UTF-8");
-                    if (getParameters().getLogLevel().isPresent()) {
-                        properties.put(LOG_LEVEL_PROPERTY, getParameters().getLogLevel().get());
-                    }
-
-                    // These are all very expensive; some computers can do these all at once but many cannot, and as they're all parallelized it doesn't save much.
-                    properties.put("dev.lukebemish.taskgraphrunner.parallelism.groups", "jst+decompile+remapMods");
-                    // And these ones should be considered heavy
-                    properties.put("dev.lukebemish.taskgraphrunner.jst+decompile+remapMods.heavy", "true");
-
-                    properties.putAll(getProviders().gradlePropertiesPrefixedBy("dev.lukebemish.taskgraphrunner").get());
-                    properties.putAll(getProviders().systemPropertiesPrefixedBy("dev.lukebemish.taskgraphrunner").get());
+    /**
+     * Records the daemon to use for cache housekeeping when the build finishes, if no other daemon was started by then.
+     * The daemon is only started if housekeeping turns out to be due.
+     */
+    public synchronized void useForHousekeeping(JavaLauncher javaLauncher, String jarPath) {
+        if (housekeepingLauncher == null) {
+            housekeepingLauncher = javaLauncher;
+            housekeepingJarPath = jarPath;
+        }
+    }
 
-                    for (Map.Entry<String, String> entry : properties.entrySet()) {
-                        args.add("-D"+entry.getKey()+"="+entry.getValue());
-                    }
-                    args.add("-cp");
-                    args.add(jarPath);
-                    for (var arg : args) {
-                        processConfiguration.addJvmOption(arg);
+    /**
+     * Leases the least busy daemon started with the given launcher and classpath. A new daemon is started instead
+     * whenever every matching daemon is busy and the pool has room; once the pool is full, daemons are shared, as each
+     * can run several graphs at once. If no daemon matches and the pool is full, an idle daemon started differently
+     * makes room, or else this waits for one to become idle, so that the limit holds across launchers and classpaths.
+     */
+    public Lease lease(JavaLauncher javaLauncher, String jarPath) {
+        var javaExecutable = javaLauncher.getExecutablePath().toString();
+        var jvmOptions = jvmOptions(jarPath);
+        // Daemons are only interchangeable if they were started identically
+        var key = javaExecutable + "\n" + String.join("\n", jvmOptions) + "\n" + getParameters().getHideStacktrace().isPresent();
+        synchronized (daemons) {
+            PooledDaemon best;
+            while (true) {
+                best = null;
+                for (var pooled : daemons) {
+                    if (pooled.key.equals(key) && (best == null || pooled.leases < best.leases)) {
+                        best = pooled;
                     }
+                }
+                if (best != null || daemons.size() < maxDaemons() || evictIdle()) {
+                    break;
+                }
+                try {
+                    daemons.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for a taskgraphrunner daemon", e);
+                }
+            }
+            if (best == null || (best.leases > 0 && daemons.size() < maxDaemons())) {
+                DaemonExecutor executor = null;
+                var idleTimeout = idleTimeout();
+                if (idleTimeout != null) {
+                    executor = PersistentDaemons.take(key);
+                }
+                boolean unproven = executor != null;
+                if (executor == null) {
+                    executor = makeDaemon(javaExecutable, jvmOptions);
+                }
+                best = new PooledDaemon(key, javaExecutable, jvmOptions, executor);
+                best.unproven = unproven;
+                daemons.add(best);
+            }
+            best.leases++;
+            return new Lease(best);
+        }
+    }
 
-                    if (getParameters().getHideStacktrace().isPresent()) {
-                        processConfiguration.hideStacktrace(true);
+    // Must be called while synchronized on the daemons
+    private boolean evictIdle() {
+        for (var pooled : daemons) {
+            if (pooled.leases == 0) {
+                daemons.remove(pooled);
+                var idleTimeout = idleTimeout();
+                if (idleTimeout != null) {
+                    PersistentDaemons.give(pooled.key, pooled.executor, idleTimeout);
+                } else {
+                    try {
+                        pooled.executor.close();
+                    } catch (Exception e) {
+                        LOGGER.warn("Failed to close idle taskgraphrunner daemon", e);
                     }
-                });
+                }
+                return true;
             }
-            return daemon;
         }
+        return false;
+    }
+
+    // Must be called while synchronized on the daemons
+    private PooledDaemon replace(PooledDaemon dead) {
+        if (dead.replacement == null) {
+            var index = daemons.indexOf(dead);
+            dead.replacement = new PooledDaemon(dead.key, dead.javaExecutable, dead.jvmOptions, makeDaemon(dead.javaExecutable, dead.jvmOptions));
+            if (index >= 0) {
+                daemons.set(index, dead.replacement);
+            }
+            try {
+                dead.executor.close();
+            } catch (Exception e) {
+                LOGGER.debug("Failed to close dead taskgraphrunner daemon", e);
+            }
+        }
+        return dead.replacement;
+    }
+
+    private @Nullable Duration idleTimeout() {
+        if (getParameters().getDaemonIdleTimeoutMinutes().isPresent() && getParameters().getDaemonIdleTimeoutMinutes().get() > 0) {
+            return Duration.ofMinutes(getParameters().getDaemonIdleTimeoutMinutes().get());
+        }
+        return null;
+    }
+
+    private int maxDaemons() {
+        if (getParameters().getMaxDaemons().isPresent()) {
+            return Math.max(1, getParameters().getMaxDaemons().get());
+        }
+        // Heavy work is only limited within a single daemon, so each further daemon may run another decompile or remap
+        // alongside the others; that is left for users to opt into on machines that can handle it
+        return 1;
+    }
+
+    private List<String> jvmOptions(String jarPath) {
+        List<String> args = new ArrayList<>();
+        Map<String, String> properties = new LinkedHashMap<>(PropertiesUtils.networkProperties(getProviders()).get());
+        properties.put("stdout.encoding", "UTF-8");
+        properties.put("stderr.encoding", "UTF-8");
+        if (getParameters().getLogLevel().isPresent()) {
+            properties.put(LOG_LEVEL_PROPERTY, getParameters().getLogLevel().get());
+        }
+
+        // These are all very expensive; some computers can do these all at once but many cannot, and as they're all parallelized it doesn't save much.
+        properties.put("dev.lukebemish.taskgraphrunner.parallelism.groups", "jst+decompile+remapMods");
+        // And these ones should be considered heavy
+        properties.put("dev.lukebemish.taskgraphrunner.jst+decompile+remapMods.heavy", "true");
+
+        properties.putAll(getProviders().gradlePropertiesPrefixedBy("dev.lukebemish.taskgraphrunner").get());
+        properties.putAll(getProviders().systemPropertiesPrefixedBy("dev.lukebemish.taskgraphrunner").get());
+
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            args.add("-D"+entry.getKey()+"="+entry.getValue());
+        }
+        args.add("-cp");
+        args.add(jarPath);
+        return args;
+    }
+
+    private DaemonExecutor makeDaemon(String javaExecutable, List<String> jvmOptions) {
+        boolean hideStacktrace = getParameters().getHideStacktrace().isPresent();
+        return new DaemonExecutor(processConfiguration -> {
+            processConfiguration.javaExecutable(javaExecutable);
+            for (var arg : jvmOptions) {
+                processConfiguration.addJvmOption(arg);
+            }
+
+            if (hideStacktrace) {
+                processConfiguration.hideStacktrace(true);
+            }
+        });
     }
 
     @Inject
@@ -140,6 +461,11 @@ public abstract static class Params implements BuildServiceParameters {
         public abstract Property<Integer> getRemoveUnusedOutputsAfterDays();
         @Optional
         public abstract Property<Integer> getRemoveUnusedLocksAfterDays();
+        public abstract Property<Integer> getCleanIntervalHours();
+        @Optional
+        public abstract Property<Integer> getMaxDaemons();
+        @Optional
+        public abstract Property<Integer> getDaemonIdleTimeoutMinutes();
 
         @Inject
         public Params() {}
@@ -0,0 +1,62 @@
+package dev.lukebemish.crochet.internal;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where the time and I/O of a single task graph execution went, as seen from the build. Written as JSON next to the
+ * execution's task record, and summarized by {@link TaskGraphRunnerService} once the build finishes.
+ *
+ * @param task the path of the task that ran the graph
+ * @param startedAt when the task action started, in milliseconds since the epoch
+ * @param configMillis time spent making the graph's config and writing it and the artifact manifest
+ * @param leaseMillis time spent waiting for a daemon, including starting one
+ * @param executeMillis time the daemon spent running the graph
+ * @param succeeded whether the graph ran successfully
+ * @param nodes the nodes of the graph, by name
+ * @param nodeTypes how many nodes of each type the graph has
+ * @param inputFiles how many artifacts were passed to the graph
+ * @param inputBytes the total size of those artifacts
+ * @param outputFiles how many outputs the graph produced for the task
+ * @param outputBytes the total size of those outputs
+ */
+public record TaskGraphTelemetry(
+    String task,
+    long startedAt,
+    long configMillis,
+    long leaseMillis,
+    long executeMillis,
+    boolean succeeded,
+    List<String> nodes,
+    Map<String, Integer> nodeTypes,
+    int inputFiles,
+    long inputBytes,
+    int outputFiles,
+    long outputBytes
+) {
+    public static final String FILE_NAME = "task-telemetry.json";
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    public long totalMillis() {
+        return configMillis + leaseMillis + executeMillis;
+    }
+
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.writeString(file, GSON.toJson(this), StandardCharsets.UTF_8);
+    }
+
+    public static TaskGraphTelemetry read(Path file) throws IOException {
+        try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return GSON.fromJson(reader, TaskGraphTelemetry.class);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package dev.lukebemish.crochet.internal;
 
+import dev.lukebemish.crochet.internal.tasks.CrochetPerfReport;
+import dev.lukebemish.crochet.internal.tasks.TaskGraphExecution;
 import org.gradle.api.Action;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
@@ -12,6 +14,7 @@ private TaskUtils() {}
 
     public static <T extends Task> TaskProvider<T> register(TaskContainer container, Class<T> type, String parent, @Nullable String prefix, @Nullable String suffix, Action<? super T> action) {
         var fullName = NameUtils.name(parent, prefix, suffix);
+        recordOwner(container, fullName, type, parent);
         return container.register(fullName, type, action);
     }
 
@@ -25,6 +28,7 @@ public static <T extends Task> TaskProvider<T> register(ExtensionHolder holder,
 
     public static <T extends Task> TaskProvider<T> registerInternal(TaskContainer container, Class<T> type, String parent, @Nullable String suffix, Action<? super T> action) {
         var fullName = NameUtils.internal(parent, suffix);
+        recordOwner(container, fullName, type, parent);
         return container.register(fullName, type, t -> {
             action.execute(t);
             t.setGroup("crochet setup");
@@ -38,4 +42,18 @@ public static <T extends Task> TaskProvider<T> registerInternal(Project project,
     public static <T extends Task> TaskProvider<T> registerInternal(ExtensionHolder holder, Class<T> type, String parent, @Nullable String suffix, Action<? super T> action) {
         return registerInternal(((ProjectHolder) holder.extension).project, type, parent, suffix, action);
     }
+
+    /**
+     * Records the installation, source set or run that a task belongs to, and its type, for the performance report.
+     * Tasks registered through this class are recorded automatically.
+     */
+    public static void recordOwner(TaskContainer container, String taskName, Class<? extends Task> type, String owner) {
+        container.withType(CrochetPerfReport.class).configureEach(report -> {
+            report.getTaskOwners().put(taskName, owner);
+            report.getTaskTypes().put(taskName, type.getSimpleName());
+            if (TaskGraphExecution.class.isAssignableFrom(type)) {
+                report.getTelemetryFiles().put(taskName, TaskGraphExecution.telemetryJson(report.getProject().getLayout(), taskName));
+            }
+        });
+    }
 }
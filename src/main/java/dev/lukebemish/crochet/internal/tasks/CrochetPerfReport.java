@@ -0,0 +1,254 @@
+package dev.lukebemish.crochet.internal.tasks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import dev.lukebemish.crochet.internal.CrochetTaskEventsService;
+import dev.lukebemish.crochet.internal.TaskGraphTelemetry;
+import org.apache.commons.lang3.StringUtils;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.ServiceReference;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.DisableCachingByDefault;
+import org.jspecify.annotations.Nullable;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reports what crochet's tasks cost over the current build, as JSON and HTML. Tasks are grouped by the installation,
+ * source set or run recorded as their owner when they were registered, and within that by stage; each task graph
+ * execution is further broken down using the telemetry it recorded the last time it did work.
+ */
+@DisableCachingByDefault(because = "Reports on the current build")
+public abstract class CrochetPerfReport extends DefaultTask {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final String INTERNAL_PREFIX = "_crochet";
+
+    @ServiceReference(CrochetTaskEventsService.NAME)
+    protected abstract Property<CrochetTaskEventsService> getTaskEvents();
+
+    /**
+     * The installation, source set or run that each crochet task belongs to, by task name.
+     */
+    @Input
+    public abstract MapProperty<String, String> getTaskOwners();
+
+    /**
+     * The type of each crochet task, by task name.
+     */
+    @Input
+    public abstract MapProperty<String, String> getTaskTypes();
+
+    /**
+     * The path of the project to report on; tasks of other projects are left out.
+     */
+    @Input
+    public abstract Property<String> getProjectPath();
+
+    /**
+     * Telemetry files of task graph executions, by task name.
+     */
+    @Internal
+    public abstract MapProperty<String, File> getTelemetryFiles();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDirectory();
+
+    @Inject
+    public CrochetPerfReport() {
+        doNotTrackState("Reports on the current build");
+    }
+
+    record Breakdown(long configMillis, long leaseMillis, long executeMillis, Map<String, Integer> nodeTypes, long inputBytes, long outputBytes, long startedAt) {}
+
+    record Stage(String name, String type, String task, long durationMillis, CrochetTaskEventsService.Outcome outcome, @Nullable Breakdown lastExecution) {}
+
+    record Owner(String name, long durationMillis, int hits, int misses, double hitRate, List<Stage> stages) {}
+
+    record Report(long generatedAt, long durationMillis, int tasks, int hits, int misses, double hitRate, List<Owner> owners) {}
+
+    @TaskAction
+    public void execute() throws IOException {
+        var report = makeReport();
+        var directory = getOutputDirectory().get().getAsFile().toPath();
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve("report.json"), GSON.toJson(report), StandardCharsets.UTF_8);
+        var html = directory.resolve("report.html");
+        Files.writeString(html, toHtml(report), StandardCharsets.UTF_8);
+        getLogger().lifecycle("Crochet performance report written to {}", html.toUri());
+    }
+
+    private Report makeReport() throws IOException {
+        var taskOwners = getTaskOwners().get();
+        var taskTypes = getTaskTypes().get();
+        var telemetryFiles = getTelemetryFiles().get();
+
+        var events = getTaskEvents().get().events();
+        if (events.isEmpty()) {
+            getLogger().warn("No task events were recorded; they are only collected when {} is requested directly", getName());
+        }
+
+        var projectPath = getProjectPath().get();
+        var projectPrefix = projectPath.endsWith(":") ? projectPath : projectPath + ":";
+        Map<String, List<Stage>> stages = new LinkedHashMap<>();
+        for (var event : events) {
+            var separator = event.path().lastIndexOf(':');
+            var name = event.path().substring(separator + 1);
+            if (!event.path().substring(0, separator + 1).equals(projectPrefix)) {
+                continue;
+            }
+            if (!taskOwners.containsKey(name)) {
+                continue;
+            }
+            var owner = taskOwners.getOrDefault(name, "other");
+            var type = taskTypes.getOrDefault(name, "TaskGraphExecution");
+            var stage = name;
+            // Internal tasks are named after their owner, which the report already shows
+            var ownerPrefix = INTERNAL_PREFIX + StringUtils.capitalize(owner);
+            if (name.startsWith(ownerPrefix) && name.length() > ownerPrefix.length()) {
+                stage = StringUtils.uncapitalize(name.substring(ownerPrefix.length()));
+            }
+            Breakdown breakdown = null;
+            var telemetryFile = telemetryFiles.get(name);
+            if (telemetryFile != null && telemetryFile.isFile()) {
+                var telemetry = TaskGraphTelemetry.read(telemetryFile.toPath());
+                breakdown = new Breakdown(
+                    telemetry.configMillis(), telemetry.leaseMillis(), telemetry.executeMillis(),
+                    telemetry.nodeTypes(), telemetry.inputBytes(), telemetry.outputBytes(), telemetry.startedAt()
+                );
+            }
+            stages.computeIfAbsent(owner, k -> new ArrayList<>()).add(new Stage(stage, type, event.path(), event.durationMillis(), event.outcome(), breakdown));
+        }
+
+        var ownerReports = new ArrayList<Owner>();
+        int hits = 0;
+        int misses = 0;
+        long duration = 0;
+        for (var entry : stages.entrySet()) {
+            var ownerStages = entry.getValue();
+            ownerStages.sort(Comparator.comparingLong(Stage::durationMillis).reversed());
+            int ownerHits = 0;
+            int ownerMisses = 0;
+            long ownerDuration = 0;
+            for (var stage : ownerStages) {
+                ownerDuration += stage.durationMillis();
+                var hit = stage.outcome().isHit();
+                if (hit != null) {
+                    if (hit) {
+                        ownerHits++;
+                    } else {
+                        ownerMisses++;
+                    }
+                }
+            }
+            ownerReports.add(new Owner(entry.getKey(), ownerDuration, ownerHits, ownerMisses, hitRate(ownerHits, ownerMisses), ownerStages));
+            hits += ownerHits;
+            misses += ownerMisses;
+            duration += ownerDuration;
+        }
+        ownerReports.sort(Comparator.comparingLong(Owner::durationMillis).reversed());
+        int tasks = ownerReports.stream().mapToInt(owner -> owner.stages().size()).sum();
+        return new Report(System.currentTimeMillis(), duration, tasks, hits, misses, hitRate(hits, misses), ownerReports);
+    }
+
+    private static double hitRate(int hits, int misses) {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    private static String toHtml(Report report) {
+        var html = new StringBuilder();
+        html.append("""
+            <!DOCTYPE html>
+            <html lang="en">
+            <head>
+            <meta charset="utf-8">
+            <title>Crochet performance report</title>
+            <style>
+            body { font-family: sans-serif; margin: 2em; }
+            .owner { margin: 1.5em 0 0.5em; }
+            .flame { display: flex; height: 1.6em; background: #eee; margin-bottom: 2px; }
+            .flame div { overflow: hidden; white-space: nowrap; font-size: 0.8em; line-height: 2em; padding: 0 0.3em; box-sizing: border-box; border-right: 1px solid #fff; }
+            .hit { background: #9ccc65; }
+            .miss { background: #ef9a55; }
+            .skip { background: #bdbdbd; }
+            .config { background: #90caf9; }
+            .lease { background: #ce93d8; }
+            .execute { background: #ffb74d; }
+            table { border-collapse: collapse; margin-top: 0.5em; }
+            td, th { padding: 0.2em 0.8em; text-align: left; border-bottom: 1px solid #ddd; }
+            </style>
+            </head>
+            <body>
+            <h1>Crochet performance report</h1>
+            """);
+        html.append("<p>").append(report.tasks()).append(" tasks, ").append(report.durationMillis()).append(" ms of task time, ")
+            .append(percent(report.hitRate())).append(" reused earlier work.</p>\n");
+
+        long longest = report.owners().stream().mapToLong(Owner::durationMillis).max().orElse(1);
+        for (var owner : report.owners()) {
+            html.append("<h2 class=\"owner\">").append(escape(owner.name())).append(" &mdash; ").append(owner.durationMillis())
+                .append(" ms, ").append(percent(owner.hitRate())).append(" reused</h2>\n");
+            // One bar per owner, scaled against the slowest, split into its stages
+            html.append("<div class=\"flame\" style=\"width: ").append(width(owner.durationMillis(), longest)).append("%\">");
+            for (var stage : owner.stages()) {
+                var hit = stage.outcome().isHit();
+                var type = hit == null ? "skip" : hit ? "hit" : "miss";
+                html.append("<div class=\"").append(type).append("\" style=\"width: ").append(width(stage.durationMillis(), owner.durationMillis()))
+                    .append("%\" title=\"").append(escape(stage.task())).append(": ").append(stage.durationMillis()).append(" ms\">")
+                    .append(escape(stage.name())).append("</div>");
+            }
+            html.append("</div>\n");
+            html.append("<table><tr><th>Stage</th><th>Type</th><th>Outcome</th><th>Time</th><th>Last execution</th></tr>\n");
+            for (var stage : owner.stages()) {
+                html.append("<tr><td title=\"").append(escape(stage.task())).append("\">").append(escape(stage.name())).append("</td><td>")
+                    .append(escape(stage.type())).append("</td><td>").append(stage.outcome().name().toLowerCase(Locale.ROOT)).append("</td><td>").append(stage.durationMillis()).append(" ms</td><td>");
+                var breakdown = stage.lastExecution();
+                if (breakdown != null) {
+                    long total = breakdown.configMillis() + breakdown.leaseMillis() + breakdown.executeMillis();
+                    html.append("<div class=\"flame\" style=\"width: 24em\">")
+                        .append(segment("config", breakdown.configMillis(), total))
+                        .append(segment("lease", breakdown.leaseMillis(), total))
+                        .append(segment("execute", breakdown.executeMillis(), total))
+                        .append("</div>")
+                        .append(escape(breakdown.nodeTypes().toString())).append(", ")
+                        .append(breakdown.inputBytes()).append(" bytes in, ").append(breakdown.outputBytes()).append(" bytes out");
+                }
+                html.append("</td></tr>\n");
+            }
+            html.append("</table>\n");
+        }
+        html.append("</body>\n</html>\n");
+        return html.toString();
+    }
+
+    private static String segment(String type, long millis, long total) {
+        return "<div class=\"" + type + "\" style=\"width: " + width(millis, total) + "%\" title=\"" + type + ": " + millis + " ms\">" + type + "</div>";
+    }
+
+    private static String width(long part, long whole) {
+        return String.format(Locale.ROOT, "%.2f", whole <= 0 ? 0 : 100.0 * part / whole);
+    }
+
+    private static String percent(double rate) {
+        return String.format(Locale.ROOT, "%.0f%%", rate * 100);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
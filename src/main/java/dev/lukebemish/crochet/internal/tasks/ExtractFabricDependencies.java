@@ -12,26 +12,47 @@
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.FileSystemOperations;
 import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.OutputDirectory;
 import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.work.DisableCachingByDefault;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.Comparator;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipFile;
 
 @DisableCachingByDefault(because = "Not worth caching")
@@ -63,14 +84,28 @@ public abstract class ExtractFabricDependencies extends DefaultTask {
     @OutputDirectory
     public abstract DirectoryProperty getOutputDirectory();
 
+    /**
+     * Where the metadata extracted from each mod jar is cached, by jar path, size and modification time, between runs. Unset to disable the
+     * cache.
+     */
+    @Internal
+    public abstract DirectoryProperty getExtractionCacheDirectory();
+
     private static final Gson GSON = new GsonBuilder().create();
     private static final Logger LOGGER = LoggerFactory.getLogger(ExtractFabricDependencies.class);
+    // Bump when the cached format or what is extracted changes
+    private static final String CACHE_VERSION = "1";
+    private static final Duration CACHE_MAX_UNUSED = Duration.ofDays(14);
 
     @Inject
     protected abstract FileSystemOperations getFileSystemOperations();
 
     @Inject
-    public ExtractFabricDependencies() {}
+    public ExtractFabricDependencies() {
+        getExtractionCacheDirectory().set(
+            new File(getProject().getGradle().getGradleUserHomeDir(), "caches/crochet/fabric-dependencies")
+        );
+    }
 
     private sealed interface Widener {
         record Field(String owner, String name, String descriptor, AccessWidenerReader.AccessType access) implements Widener {}
@@ -83,75 +118,66 @@ public void execute() throws IOException {
         getFileSystemOperations().delete(spec -> {
             spec.delete(getOutputDirectory());
         });
-        var intermediaryWideners = new HashSet<Widener>();
-        var namedWideners = new HashSet<Widener>();
+        // A jar on both classpaths is only read once
+        var modJars = new LinkedHashSet<File>();
+        modJars.addAll(getCompileModJars().getFiles());
+        modJars.addAll(getRuntimeModJars().getFiles());
+        Path cacheDirectory = null;
+        if (getExtractionCacheDirectory().isPresent()) {
+            cacheDirectory = getExtractionCacheDirectory().get().getAsFile().toPath().resolve(CACHE_VERSION);
+            Files.createDirectories(cacheDirectory);
+        }
+        var modJarContents = scanModJars(modJars, cacheDirectory);
+        if (cacheDirectory != null) {
+            cleanCache(cacheDirectory);
+        }
+
+        var packed = new PackedWideners();
+        var intermediaryWideners = new LongList();
+        var namedWideners = new LongList();
         var interfaceInjections = new HashMap<String, Set<String>>();
         for (var file : getCompileModJars()) {
-            forModJar(file, intermediaryWideners, namedWideners, interfaceInjections);
+            modJarContents.get(file).mergeInto(packed, intermediaryWideners, namedWideners, interfaceInjections);
         }
         for (var file : getFloatingCompileAccessWideners()) {
-            try (var stream = Files.newInputStream(file.toPath())) {
-                readAccessWidener(intermediaryWideners, namedWideners, stream);
-            }
+            readFloatingAccessWidener(file, packed, intermediaryWideners, namedWideners);
         }
 
-        var runtimeIntermediaryWideners = new HashSet<Widener>();
-        var runtimeNamedWideners = new HashSet<Widener>();
+        var runtimeIntermediaryWideners = new LongList();
+        var runtimeNamedWideners = new LongList();
         var runtimeInterfaceInjections = new HashMap<String, Set<String>>();
         for (var file : getRuntimeModJars()) {
-            forModJar(file, runtimeIntermediaryWideners, runtimeNamedWideners, runtimeInterfaceInjections);
+            modJarContents.get(file).mergeInto(packed, runtimeIntermediaryWideners, runtimeNamedWideners, runtimeInterfaceInjections);
         }
         for (var file : getFloatingRuntimeAccessWideners()) {
-            try (var stream = Files.newInputStream(file.toPath())) {
-                readAccessWidener(runtimeIntermediaryWideners, runtimeNamedWideners, stream);
-            }
+            readFloatingAccessWidener(file, packed, runtimeIntermediaryWideners, runtimeNamedWideners);
         }
 
-        intermediaryWideners.retainAll(runtimeIntermediaryWideners);
-        namedWideners.retainAll(runtimeNamedWideners);
+        var retainedIntermediaryWideners = intersect(intermediaryWideners.sortedDistinct(), runtimeIntermediaryWideners.sortedDistinct());
+        var retainedNamedWideners = intersect(namedWideners.sortedDistinct(), runtimeNamedWideners.sortedDistinct());
         interfaceInjections.forEach((key, value) -> value.retainAll(runtimeInterfaceInjections.getOrDefault(key, Set.of())));
         interfaceInjections.entrySet().removeIf(entry -> entry.getValue().isEmpty());
 
         var directory = getOutputDirectory().get().getAsFile().toPath();
         Files.createDirectories(directory);
-        if (!intermediaryWideners.isEmpty()) {
+        if (retainedIntermediaryWideners.length != 0) {
             var writer = new AccessWidenerWriter();
             writer.visitHeader("intermediary");
-            intermediaryWideners.stream().sorted(Comparator.comparing(Widener::toString)).forEach(widener ->{
-                switch (widener) {
-                    case Widener.Class clazz -> {
-                        writer.visitClass(clazz.name(), clazz.access(), false);
-                    }
-                    case Widener.Field field -> {
-                        writer.visitField(field.owner(), field.name(), field.descriptor(), field.access(), false);
-                    }
-                    case Widener.Method method -> {
-                        writer.visitMethod(method.owner(), method.name(), method.descriptor(), method.access(), false);
-                    }
-                }
-            });
+            for (var key : packed.toOutputOrder(retainedIntermediaryWideners)) {
+                packed.visitOrdered(key, writer);
+            }
 
             var outPath = getOutputDirectory().get().getAsFile().toPath().resolve("intermediary.accesswidener");
             try (var out = Files.newOutputStream(outPath)) {
                 out.write(writer.write());
             }
         }
-        if (!namedWideners.isEmpty()) {
+        if (retainedNamedWideners.length != 0) {
             var writer = new AccessWidenerWriter();
             writer.visitHeader("named");
-            namedWideners.stream().sorted(Comparator.comparing(Widener::toString)).forEach(widener ->{
-                switch (widener) {
-                    case Widener.Class clazz -> {
-                        writer.visitClass(clazz.name(), clazz.access(), false);
-                    }
-                    case Widener.Field field -> {
-                        writer.visitField(field.owner(), field.name(), field.descriptor(), field.access(), false);
-                    }
-                    case Widener.Method method -> {
-                        writer.visitMethod(method.owner(), method.name(), method.descriptor(), method.access(), false);
-                    }
-                }
-            });
+            for (var key : packed.toOutputOrder(retainedNamedWideners)) {
+                packed.visitOrdered(key, writer);
+            }
 
             var outPath = getOutputDirectory().get().getAsFile().toPath().resolve("named.accesswidener");
             try (var out = Files.newOutputStream(outPath)) {
@@ -220,7 +246,239 @@ public void execute() throws IOException {
         }
     }
 
-    private static void forModJar(File file, HashSet<Widener> intermediaryWideners, HashSet<Widener> namedWideners, HashMap<String, Set<String>> interfaceInjections) throws IOException {
+    /**
+     * Wideners packed into single longs: the kind, then interned owner, name and descriptor ids, then the access type.
+     * Equal wideners pack to equal keys, so collections of them can be deduplicated and intersected as sorted primitive
+     * arrays without allocating per comparison.
+     */
+    private static final class PackedWideners {
+        private static final int ID_BITS = 20;
+        private static final long ID_MASK = (1L << ID_BITS) - 1;
+        private static final int DESCRIPTOR_SHIFT = 2;
+        private static final int NAME_SHIFT = DESCRIPTOR_SHIFT + ID_BITS;
+        private static final int OWNER_SHIFT = NAME_SHIFT + ID_BITS;
+        private static final int KIND_SHIFT = OWNER_SHIFT + ID_BITS;
+        private static final int KIND_CLASS = 0;
+        private static final int KIND_FIELD = 1;
+        private static final int KIND_METHOD = 2;
+        private static final AccessWidenerReader.AccessType[] ACCESS_TYPES = AccessWidenerReader.AccessType.values();
+
+        private final StringPool owners = new StringPool();
+        private final StringPool names = new StringPool();
+        private final StringPool descriptors = new StringPool();
+
+        long pack(Widener widener) {
+            return switch (widener) {
+                case Widener.Class clazz -> pack(KIND_CLASS, owners.intern(clazz.name()), names.intern(""), descriptors.intern(""), clazz.access());
+                case Widener.Field field -> pack(KIND_FIELD, owners.intern(field.owner()), names.intern(field.name()), descriptors.intern(field.descriptor()), field.access());
+                case Widener.Method method -> pack(KIND_METHOD, owners.intern(method.owner()), names.intern(method.name()), descriptors.intern(method.descriptor()), method.access());
+            };
+        }
+
+        private static long pack(int kind, int owner, int name, int descriptor, AccessWidenerReader.AccessType access) {
+            return (long) kind << KIND_SHIFT
+                | (long) owner << OWNER_SHIFT
+                | (long) name << NAME_SHIFT
+                | (long) descriptor << DESCRIPTOR_SHIFT
+                | access.ordinal();
+        }
+
+        /**
+         * {@return the given keys with their ids replaced by ranks in string order, sorted} The result orders wideners
+         * by kind, owner, name, descriptor and access, so that output is stable regardless of the order they were read
+         * in; its entries are only meaningful to {@link #visitOrdered(long, AccessWidenerVisitor)}.
+         */
+        long[] toOutputOrder(long[] keys) {
+            var ownerRanks = owners.ranks();
+            var nameRanks = names.ranks();
+            var descriptorRanks = descriptors.ranks();
+            var ordered = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                var key = keys[i];
+                ordered[i] = pack(
+                    kind(key),
+                    ownerRanks[(int) (key >>> OWNER_SHIFT & ID_MASK)],
+                    nameRanks[(int) (key >>> NAME_SHIFT & ID_MASK)],
+                    descriptorRanks[(int) (key >>> DESCRIPTOR_SHIFT & ID_MASK)],
+                    ACCESS_TYPES[(int) (key & 3)]
+                    // The kind occupies the sign bit, so flip it for signed order to match unsigned order
+                ) ^ Long.MIN_VALUE;
+            }
+            Arrays.sort(ordered);
+            return ordered;
+        }
+
+        void visitOrdered(long orderedKey, AccessWidenerVisitor visitor) {
+            var key = orderedKey ^ Long.MIN_VALUE;
+            var owner = owners.sorted()[(int) (key >>> OWNER_SHIFT & ID_MASK)];
+            var name = names.sorted()[(int) (key >>> NAME_SHIFT & ID_MASK)];
+            var descriptor = descriptors.sorted()[(int) (key >>> DESCRIPTOR_SHIFT & ID_MASK)];
+            var access = ACCESS_TYPES[(int) (key & 3)];
+            switch (kind(key)) {
+                case KIND_CLASS -> visitor.visitClass(owner, access, false);
+                case KIND_FIELD -> visitor.visitField(owner, name, descriptor, access, false);
+                default -> visitor.visitMethod(owner, name, descriptor, access, false);
+            }
+        }
+
+        private static int kind(long key) {
+            return (int) (key >>> KIND_SHIFT);
+        }
+
+        private static final class StringPool {
+            private final Map<String, Integer> ids = new HashMap<>();
+            private final List<String> strings = new ArrayList<>();
+            private String @Nullable [] sorted;
+            private int @Nullable [] ranks;
+
+            int intern(String string) {
+                var id = ids.get(string);
+                if (id == null) {
+                    id = strings.size();
+                    if (id > ID_MASK) {
+                        throw new IllegalStateException("Too many distinct access widener entries to pack");
+                    }
+                    ids.put(string, id);
+                    strings.add(string);
+                    sorted = null;
+                    ranks = null;
+                }
+                return id;
+            }
+
+            String[] sorted() {
+                if (sorted == null) {
+                    sorted = strings.toArray(String[]::new);
+                    Arrays.sort(sorted);
+                }
+                return sorted;
+            }
+
+            int[] ranks() {
+                if (ranks == null) {
+                    var sorted = sorted();
+                    ranks = new int[sorted.length];
+                    for (int rank = 0; rank < sorted.length; rank++) {
+                        ranks[ids.get(sorted[rank])] = rank;
+                    }
+                }
+                return ranks;
+            }
+        }
+    }
+
+    private static final class LongList {
+        private long[] values = new long[64];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] sortedDistinct() {
+            var sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int distinct = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[distinct++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, distinct);
+        }
+    }
+
+    private static long[] intersect(long[] first, long[] second) {
+        var result = new long[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static void readFloatingAccessWidener(File file, PackedWideners packed, LongList intermediaryWideners, LongList namedWideners) throws IOException {
+        var intermediary = new ArrayList<Widener>();
+        var named = new ArrayList<Widener>();
+        try (var stream = Files.newInputStream(file.toPath())) {
+            readAccessWidener(intermediary, named, stream);
+        }
+        intermediary.forEach(widener -> intermediaryWideners.add(packed.pack(widener)));
+        named.forEach(widener -> namedWideners.add(packed.pack(widener)));
+    }
+
+    private record ModJarContents(List<Widener> intermediaryWideners, List<Widener> namedWideners, Map<String, Set<String>> interfaceInjections) {
+        void mergeInto(PackedWideners packed, LongList intermediaryWideners, LongList namedWideners, Map<String, Set<String>> interfaceInjections) {
+            this.intermediaryWideners.forEach(widener -> intermediaryWideners.add(packed.pack(widener)));
+            this.namedWideners.forEach(widener -> namedWideners.add(packed.pack(widener)));
+            this.interfaceInjections.forEach((key, value) -> interfaceInjections.computeIfAbsent(key, k -> new HashSet<>()).addAll(value));
+        }
+    }
+
+    private static Map<File, ModJarContents> scanModJars(Collection<File> files, @Nullable Path cacheDirectory) throws IOException {
+        var results = new HashMap<File, ModJarContents>();
+        if (files.isEmpty()) {
+            return results;
+        }
+        // Each jar is scanned independently into its own result, so no shared state needs synchronizing
+        try (var executor = Executors.newFixedThreadPool(Math.min(files.size(), Runtime.getRuntime().availableProcessors()))) {
+            var futures = new LinkedHashMap<File, Future<ModJarContents>>();
+            for (var file : files) {
+                futures.put(file, executor.submit(() -> forModJar(file, cacheDirectory)));
+            }
+            for (var entry : futures.entrySet()) {
+                try {
+                    results.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException ioException) {
+                        throw ioException;
+                    }
+                    throw new IOException("Failed to read " + entry.getKey(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading mod jars");
+        }
+        return results;
+    }
+
+    private static ModJarContents forModJar(File file, @Nullable Path cacheDirectory) throws IOException {
+        if (cacheDirectory == null) {
+            return readModJar(file);
+        }
+        var cached = cacheDirectory.resolve(key(file.toPath()) + ".json");
+        if (Files.exists(cached)) {
+            try {
+                var contents = readCached(cached);
+                Files.setLastModifiedTime(cached, FileTime.from(Instant.now()));
+                return contents;
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Could not read cached metadata for " + file + ", re-extracting: " + e);
+            }
+        }
+        var contents = readModJar(file);
+        writeCached(cacheDirectory, cached, contents);
+        return contents;
+    }
+
+    private static ModJarContents readModJar(File file) throws IOException {
+        var intermediaryWideners = new ArrayList<Widener>();
+        var namedWideners = new ArrayList<Widener>();
+        var interfaceInjections = new HashMap<String, Set<String>>();
         try (var zip = new ZipFile(file)) {
             var fmj = zip.getEntry("fabric.mod.json");
             if (fmj != null) {
@@ -255,11 +513,138 @@ private static void forModJar(File file, HashSet<Widener> intermediaryWideners,
                 }
             }
         }
+        return new ModJarContents(intermediaryWideners, namedWideners, interfaceInjections);
+    }
+
+    /**
+     * {@return a cache key for the given jar} Hashing the jar's contents would read every byte of it, far more than
+     * extraction itself reads, so the key is made from its path, size and modification time instead. Resolved
+     * dependencies are stored at content-addressed paths by Gradle, so a changed jar is all but certain to change one
+     * of these.
+     */
+    private static String key(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        var key = file.toAbsolutePath() + "\n" + attributes.size() + "\n" + attributes.lastModifiedTime().toMillis();
+        return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static ModJarContents readCached(Path cached) throws IOException {
+        JsonObject json;
+        try (var reader = Files.newBufferedReader(cached, StandardCharsets.UTF_8)) {
+            json = GSON.fromJson(reader, JsonObject.class);
+        }
+        var intermediaryWideners = new ArrayList<Widener>();
+        for (var element : json.getAsJsonArray("intermediary")) {
+            intermediaryWideners.add(decodeWidener(element.getAsJsonArray()));
+        }
+        var namedWideners = new ArrayList<Widener>();
+        for (var element : json.getAsJsonArray("named")) {
+            namedWideners.add(decodeWidener(element.getAsJsonArray()));
+        }
+        var interfaceInjections = new HashMap<String, Set<String>>();
+        for (var entry : json.getAsJsonObject("interfaceInjections").entrySet()) {
+            var set = new HashSet<String>();
+            for (var element : entry.getValue().getAsJsonArray()) {
+                set.add(element.getAsString());
+            }
+            interfaceInjections.put(entry.getKey(), set);
+        }
+        return new ModJarContents(intermediaryWideners, namedWideners, interfaceInjections);
+    }
+
+    private static void writeCached(Path cacheDirectory, Path cached, ModJarContents contents) throws IOException {
+        var json = new JsonObject();
+        var intermediary = new JsonArray();
+        contents.intermediaryWideners().forEach(widener -> intermediary.add(encodeWidener(widener)));
+        json.add("intermediary", intermediary);
+        var named = new JsonArray();
+        contents.namedWideners().forEach(widener -> named.add(encodeWidener(widener)));
+        json.add("named", named);
+        var interfaceInjections = new JsonObject();
+        contents.interfaceInjections().forEach((key, value) -> {
+            var array = new JsonArray();
+            value.forEach(array::add);
+            interfaceInjections.add(key, array);
+        });
+        json.add("interfaceInjections", interfaceInjections);
+
+        try {
+            var temp = Files.createTempFile(cacheDirectory, cached.getFileName().toString(), ".tmp");
+            try {
+                try (var writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    GSON.toJson(json, writer);
+                }
+                Files.move(temp, cached, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            // Failing to cache is not fatal; the jar will just be read again next time
+            LOGGER.warn("Could not cache metadata at " + cached + ": " + e);
+        }
+    }
+
+    private static JsonArray encodeWidener(Widener widener) {
+        var array = new JsonArray();
+        switch (widener) {
+            case Widener.Class clazz -> {
+                array.add("class");
+                array.add(clazz.access().name());
+                array.add(clazz.name());
+            }
+            case Widener.Field field -> {
+                array.add("field");
+                array.add(field.access().name());
+                array.add(field.owner());
+                array.add(field.name());
+                array.add(field.descriptor());
+            }
+            case Widener.Method method -> {
+                array.add("method");
+                array.add(method.access().name());
+                array.add(method.owner());
+                array.add(method.name());
+                array.add(method.descriptor());
+            }
+        }
+        return array;
+    }
+
+    private static Widener decodeWidener(JsonArray array) {
+        var access = AccessWidenerReader.AccessType.valueOf(array.get(1).getAsString());
+        return switch (array.get(0).getAsString()) {
+            case "class" -> new Widener.Class(array.get(2).getAsString(), access);
+            case "field" -> new Widener.Field(array.get(2).getAsString(), array.get(3).getAsString(), array.get(4).getAsString(), access);
+            case "method" -> new Widener.Method(array.get(2).getAsString(), array.get(3).getAsString(), array.get(4).getAsString(), access);
+            default -> throw new IllegalArgumentException("Unknown widener kind " + array.get(0));
+        };
+    }
+
+    private static void cleanCache(Path cacheDirectory) {
+        var cutoff = Instant.now().minus(CACHE_MAX_UNUSED);
+        try (var files = Files.list(cacheDirectory)) {
+            files.forEach(file -> {
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to clean cached metadata " + file + ": " + e);
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.warn("Failed to clean metadata cache " + cacheDirectory + ": " + e);
+        }
     }
 
-    private static void readAccessWidener(HashSet<Widener> intermediaryWideners, HashSet<Widener> namedWideners, InputStream stream) throws IOException {
-        var bytes = stream.readAllBytes();
-        @SuppressWarnings("unchecked") HashSet<Widener>[] wideners = new HashSet[1];
+    private static void readAccessWidener(List<Widener> intermediaryWideners, List<Widener> namedWideners, InputStream stream) throws IOException {
+        @SuppressWarnings("unchecked") List<Widener>[] wideners = new List[1];
         var reader = new AccessWidenerReader(new AccessWidenerVisitor() {
             @Override
             public void visitHeader(String namespace) {
@@ -291,6 +676,7 @@ public void visitField(String owner, String name, String descriptor, AccessWiden
                 }
             }
         });
-        reader.read(bytes);
+        // The header is visited first, as part of the same pass, so it picks the target before any entries are read
+        reader.read(new BufferedReader(new InputStreamReader(stream, AccessWidenerReader.ENCODING)));
     }
 }
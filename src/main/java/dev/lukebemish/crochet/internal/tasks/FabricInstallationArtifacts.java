@@ -16,11 +16,13 @@
 import dev.lukebemish.taskgraphrunner.model.TaskModel;
 import dev.lukebemish.taskgraphrunner.model.Value;
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.PathSensitive;
 
@@ -45,6 +47,12 @@ public abstract class FabricInstallationArtifacts implements TaskGraphExecution.
     @PathSensitive(org.gradle.api.tasks.PathSensitivity.NONE)
     public abstract ConfigurableFileCollection getAccessWideners();
 
+    /**
+     * Directory in which the tools cache parsed mappings by content, so that the same mappings are parsed once.
+     */
+    @Internal
+    public abstract DirectoryProperty getMappingsCacheDirectory();
+
     @Inject
     protected abstract ObjectFactory getObjects();
 
@@ -70,21 +78,10 @@ public Config makeConfig() throws IOException {
         wrapped.parameters.put("intermediary", Value.file(getIntermediary().get().getAsFile().toPath()));
 
         dev.lukebemish.taskgraphrunner.model.Input mappingsInput = new dev.lukebemish.taskgraphrunner.model.Input.DirectInput(Value.artifact("dev.lukebemish.crochet.internal:minecraft-mappings"));
-        boolean vanillaMappings = true;
         boolean reversedMappings = true;
         if (wrappedArtifacts.getMappings().isPresent()) {
             mappingsInput = new Input.TaskInput(new Output("crochetMakeMappings", "output"));
             reversedMappings = false;
-            vanillaMappings = false;
-        }
-
-        MappingsSource.File namedToObjMappingsFile = new MappingsSource.File(mappingsInput);
-        MappingsSource namedToObfMappings = namedToObjMappingsFile;
-        if (vanillaMappings) {
-            namedToObjMappingsFile.extension = new InputValue.DirectInput(new Value.DirectStringValue("txt"));
-        }
-        if (!reversedMappings) {
-            namedToObfMappings = new MappingsSource.Reversed(namedToObfMappings);
         }
 
         var obfToIntermediaryMappings = new TaskModel.TransformMappings(
@@ -95,22 +92,27 @@ public Config makeConfig() throws IOException {
         obfToIntermediaryMappings.sourceJar = new Input.TaskInput(wrapped.aliases.get("binaryObf"));
         wrapped.tasks.add(obfToIntermediaryMappings);
 
-        wrapped.tasks.add(new TaskModel.TransformMappings(
-            "namedToIntermediaryMappings",
-            MappingsFormat.TINY2,
-            new MappingsSource.Chained(List.of(
-                namedToObfMappings,
-                new MappingsSource.File(new Input.TaskInput(new Output(obfToIntermediaryMappings.name(), "output")))
-            ))
-        ));
-
-        wrapped.tasks.add(new TaskModel.TransformMappings(
-            "intermediaryToNamedMappings",
-            MappingsFormat.TINY2,
-            new MappingsSource.Reversed(
-                new MappingsSource.File(new Input.TaskInput(new Output("namedToIntermediaryMappings", "output")))
-            )
-        ));
+        // Both directions between named and intermediary come from a single chaining pass, instead of a chain and a
+        // reversal that would each write and reparse the mappings
+        var fabricMappings = new TaskModel.DaemonExecutedTool(
+            "fabricMappings",
+            List.of(
+                Argument.direct("chain-fabric-mappings"),
+                new Argument.FileInput("--named-mappings={}", mappingsInput, PathSensitivity.NONE),
+                new Argument.FileInput("--intermediary-mappings={}", new Input.TaskInput(new Output(obfToIntermediaryMappings.name(), "output")), PathSensitivity.NONE),
+                new Argument.FileOutput("--named-to-intermediary={}", "namedToIntermediary", "tiny"),
+                new Argument.FileOutput("--intermediary-to-named={}", "intermediaryToNamed", "tiny")
+            ),
+            new Input.DirectInput(Value.artifact("dev.lukebemish.crochet:tools:" + CrochetProjectPlugin.VERSION))
+        );
+        if (!reversedMappings) {
+            fabricMappings.args.add(Argument.direct("--reverse-named-mappings"));
+        }
+        wrapped.tasks.add(fabricMappings);
+        var namedToIntermediaryMappings = new Output(fabricMappings.name(), "namedToIntermediary");
+        var intermediaryToNamedMappings = new Output(fabricMappings.name(), "intermediaryToNamed");
+        wrapped.aliases.put("namedToIntermediaryMappings", namedToIntermediaryMappings);
+        wrapped.aliases.put("intermediaryToNamedMappings", intermediaryToNamedMappings);
 
         if (!getAccessWideners().isEmpty()) {
             var transformAccessWideners = new TaskModel.DaemonExecutedTool(
@@ -118,11 +120,13 @@ public Config makeConfig() throws IOException {
                 List.of(
                     Argument.direct("transform-access-wideners"),
                     new Argument.FileOutput("--output={}", "output", "cfg"),
-                    new Argument.FileInput("--mappings={}", new Input.TaskInput(new Output("intermediaryToNamedMappings", "output")), PathSensitivity.NONE)
+                    new Argument.FileInput("--mappings={}", new Input.TaskInput(intermediaryToNamedMappings), PathSensitivity.NONE)
                 ),
                 new Input.DirectInput(Value.artifact("dev.lukebemish.crochet:tools:" + CrochetProjectPlugin.VERSION))
             );
-            transformAccessWideners.classpathScopedJvm = true;
+            if (getMappingsCacheDirectory().isPresent()) {
+                transformAccessWideners.args.add(Argument.direct("--mappings-cache-dir=" + getMappingsCacheDirectory().get().getAsFile().getAbsolutePath()));
+            }
 
             wrapped.tasks.add(transformAccessWideners);
 
@@ -157,11 +161,13 @@ public Config makeConfig() throws IOException {
                 List.of(
                     Argument.direct("transform-interface-injection"),
                     new Argument.FileOutput("--output={}", "output", "json"),
-                    new Argument.FileInput("--mappings={}", new Input.TaskInput(new Output("intermediaryToNamedMappings", "output")), PathSensitivity.NONE)
+                    new Argument.FileInput("--mappings={}", new Input.TaskInput(intermediaryToNamedMappings), PathSensitivity.NONE)
                 ),
                 new Input.DirectInput(Value.artifact("dev.lukebemish.crochet:tools:" + CrochetProjectPlugin.VERSION))
             );
-            transformInterfaceInjection.classpathScopedJvm = true;
+            if (getMappingsCacheDirectory().isPresent()) {
+                transformInterfaceInjection.args.add(Argument.direct("--mappings-cache-dir=" + getMappingsCacheDirectory().get().getAsFile().getAbsolutePath()));
+            }
 
             wrapped.tasks.add(transformInterfaceInjection);
 
@@ -187,7 +193,7 @@ public Config makeConfig() throws IOException {
             Argument.direct("--output"),
             new Argument.FileOutput(null, "output", "jar"),
             Argument.direct("--map"),
-            new Argument.FileInput(null, new Input.TaskInput(new Output("namedToIntermediaryMappings", "output")), PathSensitivity.NONE),
+            new Argument.FileInput(null, new Input.TaskInput(namedToIntermediaryMappings), PathSensitivity.NONE),
             Argument.direct("--cfg"),
             new Argument.LibrariesFile(null, List.of(new Input.TaskInput(new Output("listLibraries", "output"))), new InputValue.DirectInput(new Value.DirectStringValue("-e=")))
         ), new Input.DirectInput(Value.tool("autorenamingtool")));
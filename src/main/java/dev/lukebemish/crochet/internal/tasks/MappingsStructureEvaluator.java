@@ -0,0 +1,167 @@
+package dev.lukebemish.crochet.internal.tasks;
+
+import dev.lukebemish.crochet.model.mappings.ChainedMappingsStructure;
+import dev.lukebemish.crochet.model.mappings.FileMappingsStructure;
+import dev.lukebemish.crochet.model.mappings.MappingsStructure;
+import dev.lukebemish.crochet.model.mappings.MergedMappingsStructure;
+import dev.lukebemish.crochet.model.mappings.MojangOfficialMappingsStructure;
+import dev.lukebemish.crochet.model.mappings.ReversedMappingsStructure;
+import dev.lukebemish.taskgraphrunner.model.Input;
+import dev.lukebemish.taskgraphrunner.model.InputValue;
+import dev.lukebemish.taskgraphrunner.model.MappingsFormat;
+import dev.lukebemish.taskgraphrunner.model.MappingsSource;
+import dev.lukebemish.taskgraphrunner.model.Output;
+import dev.lukebemish.taskgraphrunner.model.TaskModel;
+import dev.lukebemish.taskgraphrunner.model.Value;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Converts a {@link MappingsStructure} into a taskgraphrunner model, like {@link MappingsStructure#toModel}, but
+ * materializes shared composite sub-structures as their own mappings tasks. Structures are canonicalized by their shape
+ * and the contents of their input files, and each task is named by its canonical hash. A sub-structure that appears more
+ * than once in a config is evaluated once; one that also appears in another installation's mappings, as passed to
+ * {@link #shareWith}, produces an identical task in both configs, which taskgraphrunner's cache shares between them.
+ * Anything else is left inline, as materializing it would only add a write and reparse of the mappings.
+ */
+final class MappingsStructureEvaluator {
+    private static final String TASK_PREFIX = "crochetMappings_";
+
+    private final Input officialMappings;
+    private final Input sourceJar;
+    private final Map<MappingsStructure, String> keys = new IdentityHashMap<>();
+    private final Map<String, Integer> occurrences = new HashMap<>();
+    private final Set<String> sharedElsewhere = new HashSet<>();
+    private final Map<File, String> fileHashes = new HashMap<>();
+    private final Map<String, MappingsSource> materialized = new HashMap<>();
+    private final List<TaskModel> tasks = new ArrayList<>();
+
+    MappingsStructureEvaluator(Input officialMappings, Input sourceJar) {
+        this.officialMappings = officialMappings;
+        this.sourceJar = sourceJar;
+    }
+
+    /**
+     * {@return the model for the given structure} Any tasks it depends on are available from {@link #tasks()}
+     * afterwards.
+     */
+    MappingsSource evaluate(MappingsStructure structure) throws IOException {
+        key(structure, key -> occurrences.merge(key, 1, Integer::sum));
+        // The root is left inline, as the caller's own task already evaluates it
+        return build(structure, false);
+    }
+
+    /**
+     * Marks the sub-structures of another installation's mappings as shared, so that any this config has in common with
+     * them are materialized. Must be called before {@link #evaluate}.
+     */
+    void shareWith(MappingsStructure other) throws IOException {
+        key(other, sharedElsewhere::add);
+    }
+
+    List<TaskModel> tasks() {
+        return tasks;
+    }
+
+    private String key(MappingsStructure structure, Consumer<String> seen) throws IOException {
+        var key = switch (structure) {
+            case ChainedMappingsStructure chained -> "chained(" + keys(chained.getInputMappings().get(), seen) + ")";
+            case FileMappingsStructure file -> "file(" + fileHash(file.getMappingsFile().getSingleFile()) + ")";
+            case MergedMappingsStructure merged -> "merged(" + keys(merged.getInputMappings().get(), seen) + ")";
+            case MojangOfficialMappingsStructure ignored -> "official";
+            case ReversedMappingsStructure reversed -> "reversed(" + key(reversed.getInputMappings().get(), seen) + ")";
+        };
+        keys.put(structure, key);
+        seen.accept(key);
+        return key;
+    }
+
+    private String keys(List<MappingsStructure> structures, Consumer<String> seen) throws IOException {
+        var joined = new ArrayList<String>();
+        for (var structure : structures) {
+            joined.add(key(structure, seen));
+        }
+        return String.join(",", joined);
+    }
+
+    private String fileHash(File file) throws IOException {
+        var existing = fileHashes.get(file);
+        if (existing != null) {
+            return existing;
+        }
+        var digest = sha256();
+        try (var stream = Files.newInputStream(file.toPath())) {
+            var buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        // The extension is kept, as it decides how the file is read
+        var name = file.getName();
+        var extension = name.contains(".") ? name.substring(name.lastIndexOf('.')) : "";
+        var hash = HexFormat.of().formatHex(digest.digest()) + extension;
+        fileHashes.put(file, hash);
+        return hash;
+    }
+
+    private MappingsSource build(MappingsStructure structure, boolean materialize) {
+        var key = keys.get(structure);
+        var shared = materialize
+            && !(structure instanceof FileMappingsStructure) && !(structure instanceof MojangOfficialMappingsStructure)
+            && (occurrences.getOrDefault(key, 0) > 1 || sharedElsewhere.contains(key));
+        if (shared) {
+            var existing = materialized.get(key);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        MappingsSource source = switch (structure) {
+            case ChainedMappingsStructure chained -> new MappingsSource.Chained(chained.getInputMappings().get().stream().map(it -> build(it, true)).toList());
+            case FileMappingsStructure file -> new MappingsSource.File(new Input.DirectInput(Value.file(file.getMappingsFile().getSingleFile().toPath())));
+            case MergedMappingsStructure merged -> new MappingsSource.Merged(merged.getInputMappings().get().stream().map(it -> build(it, true)).toList());
+            case MojangOfficialMappingsStructure ignored -> {
+                var file = new MappingsSource.File(officialMappings);
+                file.extension = new InputValue.DirectInput(new Value.DirectStringValue("txt"));
+                yield new MappingsSource.Reversed(file);
+            }
+            case ReversedMappingsStructure reversed -> new MappingsSource.Reversed(build(reversed.getInputMappings().get(), true));
+        };
+        if (shared) {
+            var task = new TaskModel.TransformMappings(TASK_PREFIX + hash(key), MappingsFormat.TINY2, source);
+            task.sourceJar = sourceJar;
+            tasks.add(task);
+            source = new MappingsSource.File(new Input.TaskInput(new Output(task.name(), "output")));
+            materialized.put(key, source);
+        }
+        return source;
+    }
+
+    private static String hash(String key) {
+        var digest = sha256().digest(key.getBytes(StandardCharsets.UTF_8));
+        // A prefix is plenty to keep the few sub-structures of a single config apart
+        return HexFormat.of().formatHex(digest, 0, 8);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package dev.lukebemish.crochet.internal.tasks;
 
+import dev.lukebemish.crochet.CrochetProperties;
 import dev.lukebemish.crochet.internal.CrochetProjectPlugin;
 import dev.lukebemish.crochet.model.InstallationDistribution;
 import dev.lukebemish.taskgraphrunner.model.Argument;
@@ -15,6 +16,7 @@
 import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.Directory;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.RegularFile;
 import org.gradle.api.file.RegularFileProperty;
@@ -25,6 +27,7 @@
 import org.gradle.api.tasks.Classpath;
 import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
@@ -32,6 +35,7 @@
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
@@ -77,6 +81,25 @@ public abstract class RemapModsConfigMaker implements TaskGraphExecution.ConfigM
     @org.gradle.api.tasks.Input
     public abstract Property<Boolean> getIsReObf();
 
+    /**
+     * Directory in which remapped jars are cached by content, so that only changed jars need be remapped when the
+     * remapping task is re-run. Unset for one-off remapping tasks.
+     */
+    @Internal
+    public abstract DirectoryProperty getRemapCacheDirectory();
+
+    /**
+     * Directory in which parsed mappings are cached by content. Unset to parse the mappings every time.
+     */
+    @Internal
+    public abstract DirectoryProperty getMappingsCacheDirectory();
+
+    /**
+     * Number of threads to remap with; does not affect the output.
+     */
+    @Internal
+    public abstract Property<Integer> getThreads();
+
     @Inject
     public RemapModsConfigMaker() {
         getStripNestedJars().convention(true);
@@ -107,7 +130,9 @@ public Config makeConfig() throws IOException {
             Argument.direct("remap-mods")
         ), new Input.DirectInput(Value.artifact("dev.lukebemish.crochet:tools:" + CrochetProjectPlugin.VERSION)));
 
-        remapTask.classpathScopedJvm = true;
+        // Not classpath scoped: the tools close every zip filesystem they open, so the daemon may keep one warm
+        // classloader, and the tiny-remapper classes loaded into it, across invocations
+        remapTask.classpathScopedJvm = false;
 
         for (var name : outputNames) {
             remapTask.args.add(new Argument.FileInput(null, new Input.ParameterInput(name), dev.lukebemish.taskgraphrunner.model.PathSensitivity.NONE));
@@ -124,6 +149,15 @@ public Config makeConfig() throws IOException {
         // Is this the best approach? For now -- yes.
         remapTask.parallelism = "remapMods";
 
+        if (getRemapCacheDirectory().isPresent()) {
+            remapTask.args.add(Argument.direct("--cache-dir=" + getRemapCacheDirectory().get().getAsFile().getAbsolutePath()));
+        }
+        if (getMappingsCacheDirectory().isPresent()) {
+            remapTask.args.add(Argument.direct("--mappings-cache-dir=" + getMappingsCacheDirectory().get().getAsFile().getAbsolutePath()));
+        }
+        if (getThreads().isPresent()) {
+            remapTask.args.add(Argument.direct("--threads=" + getThreads().get()));
+        }
         if (!getStripNestedJars().get()) {
             remapTask.args.add(Argument.direct("--strip-nested-jars=false"));
         }
@@ -191,6 +225,9 @@ public void setup(TaskGraphExecution outer, Configuration source, Configuration
 
     public void setup(TaskGraphExecution outer, Configuration source, Configuration exclude, Directory destinationDirectory, FileDestination destinationFiles) {
         outer.dependsOn(source);
+        getRemapCacheDirectory().set(new File(outer.getProject().getGradle().getGradleUserHomeDir(), "caches/crochet/remap-mods"));
+        getMappingsCacheDirectory().set(new File(outer.getProject().getGradle().getGradleUserHomeDir(), "caches/crochet/mappings"));
+        getThreads().set(outer.getProject().getProviders().gradleProperty(CrochetProperties.REMAP_THREADS).map(Integer::parseInt));
         var sourceArtifacts = source.getIncoming().getArtifacts().getResolvedArtifacts();
         var excludeArtifacts = exclude.getIncoming().getArtifacts().getResolvedArtifacts();
         var targetsProvider = outer.getProject().provider(() -> {
@@ -3,8 +3,8 @@
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import dev.lukebemish.crochet.internal.TaskGraphRunnerService;
+import dev.lukebemish.crochet.internal.TaskGraphTelemetry;
 import dev.lukebemish.crochet.internal.Unit;
-import dev.lukebemish.taskgraphrunner.daemon.DaemonExecutor;
 import dev.lukebemish.taskgraphrunner.model.Config;
 import dev.lukebemish.taskgraphrunner.model.Output;
 import dev.lukebemish.taskgraphrunner.model.WorkItem;
@@ -36,6 +36,8 @@
 import org.gradle.jvm.toolchain.JavaLauncher;
 import org.gradle.jvm.toolchain.JavaToolchainService;
 import org.gradle.work.DisableCachingByDefault;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.io.File;
@@ -50,11 +52,14 @@
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @DisableCachingByDefault(because = "TaskGraphRunner cache makes local caching a waste of disk space; remote caching disabled as gradle is not selective")
 public abstract class TaskGraphExecution extends DefaultTask {
     private static final Gson GSON = new GsonBuilder().create();
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskGraphExecution.class);
 
     public interface ConfigMaker {
         Config makeConfig() throws IOException;
@@ -74,16 +79,16 @@ public TaskGraphExecution() {
         this.getOutputs().upToDateWhen(task -> {
             var taskRecordJson = getTaskRecordJson().get().getAsFile();
             if (taskRecordJson.exists()) {
-                // Start the daemon
-                makeDaemon();
+                // The records are marked when the cache is next cleaned, which may need a daemon
+                getTaskGraphRunnerService().get().useForHousekeeping(getJavaLauncher().get(), getClasspath().getSingleFile().getAbsolutePath());
                 getTaskGraphRunnerService().get().addTaskRecordJson(getRuntimeCacheDirectory().get().getAsFile().toPath().toAbsolutePath(), taskRecordJson.toPath().toAbsolutePath());
             }
             return true;
         });
     }
 
-    private DaemonExecutor makeDaemon() {
-        return getTaskGraphRunnerService().get().start(getJavaLauncher().get(), getClasspath().getSingleFile().getAbsolutePath());
+    private TaskGraphRunnerService.Lease leaseDaemon() {
+        return getTaskGraphRunnerService().get().lease(getJavaLauncher().get(), getClasspath().getSingleFile().getAbsolutePath());
     }
 
     @Nested
@@ -105,6 +110,19 @@ private DaemonExecutor makeDaemon() {
     @Internal
     protected abstract RegularFileProperty getTaskRecordJson();
 
+    @Internal
+    public Provider<File> getTelemetryJson() {
+        return getTaskRecordJson().map(file -> new File(file.getAsFile().getParentFile(), TaskGraphTelemetry.FILE_NAME));
+    }
+
+    /**
+     * {@return where the task graph execution of the given name writes its telemetry, found without realizing the task}
+     * This matches {@link #getTelemetryJson()} as long as the task record stays in the task's temporary directory.
+     */
+    public static Provider<File> telemetryJson(ProjectLayout layout, String taskName) {
+        return layout.getBuildDirectory().file("tmp/" + taskName + "/" + TaskGraphTelemetry.FILE_NAME).map(RegularFile::getAsFile);
+    }
+
     public static abstract class GraphOutput {
         @Input
         public abstract Property<String> getOutputName();
@@ -148,6 +166,8 @@ public void copyConfigFrom(TaskGraphExecution other) {
 
     @TaskAction
     public void execute() throws IOException {
+        var startedAt = System.currentTimeMillis();
+        var configStart = System.nanoTime();
         var config = getConfigMaker().get().makeConfig();
         var workItem = new WorkItem();
         getTargets().get().forEach(graphOutput -> {
@@ -181,7 +201,6 @@ public void execute() throws IOException {
             throw new UncheckedIOException(e);
         }
 
-        var daemon = makeDaemon();
         getTaskGraphRunnerService().get().addCacheDir(getRuntimeCacheDirectory().get().getAsFile().toPath().toAbsolutePath());
 
         List<String> arguments = new ArrayList<>();
@@ -192,7 +211,59 @@ public void execute() throws IOException {
         arguments.add(configPath.toAbsolutePath().toString());
         arguments.add("--task-record-json="+getTaskRecordJson().get().getAsFile().getAbsolutePath());
 
-        daemon.execute(arguments.toArray(String[]::new));
+        var configMillis = millisSince(configStart);
+        var leaseStart = System.nanoTime();
+        long leaseMillis = 0;
+        long executeStart = 0;
+        boolean executeStarted = false;
+        boolean succeeded = false;
+        try (var lease = leaseDaemon()) {
+            leaseMillis = millisSince(leaseStart);
+            executeStart = System.nanoTime();
+            executeStarted = true;
+            lease.execute(arguments.toArray(String[]::new));
+            succeeded = true;
+        } finally {
+            var executeMillis = executeStarted ? millisSince(executeStart) : 0;
+            try {
+                recordTelemetry(config, files, startedAt, configMillis, leaseMillis, executeMillis, succeeded);
+            } catch (RuntimeException | IOException e) {
+                // Telemetry is informational only, and should never fail the build or hide why it failed
+                LOGGER.warn("Failed to record telemetry for {}", getPath(), e);
+            }
+        }
+    }
+
+    private void recordTelemetry(Config config, List<RegularFile> inputs, long startedAt, long configMillis, long leaseMillis, long executeMillis, boolean succeeded) throws IOException {
+        var nodes = new ArrayList<String>();
+        var nodeTypes = new TreeMap<String, Integer>();
+        for (var task : config.tasks) {
+            nodes.add(task.name());
+            nodeTypes.merge(task.getClass().getSimpleName(), 1, Integer::sum);
+        }
+        long inputBytes = 0;
+        for (var input : inputs) {
+            inputBytes += input.getAsFile().length();
+        }
+        int outputFiles = 0;
+        long outputBytes = 0;
+        for (var target : getTargets().get()) {
+            var file = target.getOutputFile().get().getAsFile();
+            if (file.isFile()) {
+                outputFiles++;
+                outputBytes += file.length();
+            }
+        }
+        var telemetry = new TaskGraphTelemetry(
+            getPath(), startedAt, configMillis, leaseMillis, executeMillis, succeeded,
+            nodes, nodeTypes, inputs.size(), inputBytes, outputFiles, outputBytes
+        );
+        getTaskGraphRunnerService().get().addTelemetry(telemetry);
+        telemetry.write(getTelemetryJson().get().toPath());
+    }
+
+    private static long millisSince(long nanoTime) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - nanoTime);
     }
 
     public void artifactsConfiguration(Configuration configuration) {
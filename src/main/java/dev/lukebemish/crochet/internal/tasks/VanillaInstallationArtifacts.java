@@ -14,6 +14,7 @@
 import dev.lukebemish.taskgraphrunner.model.conversion.SingleVersionGenerator;
 import org.gradle.api.Project;
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFiles;
@@ -108,9 +109,15 @@ protected Config makeConfig(@Nullable MappingsStructure mappings, boolean hasAcc
 
         if (mappings != null) {
             var clientMappings = new dev.lukebemish.taskgraphrunner.model.Input.DirectInput(Value.artifact("dev.lukebemish.crochet.internal:minecraft-mappings"));
-            var mappingsModel = MappingsStructure.toModel(mappings, clientMappings);
+            var sourceJar = new dev.lukebemish.taskgraphrunner.model.Input.TaskInput(config.aliases.get("binaryObf"));
+            var evaluator = new MappingsStructureEvaluator(clientMappings, sourceJar);
+            for (var other : getOtherInstallationMappings().get()) {
+                evaluator.shareWith(other);
+            }
+            var mappingsModel = evaluator.evaluate(mappings);
+            config.tasks.addAll(evaluator.tasks());
             var mappingsTask = new TaskModel.TransformMappings("crochetMakeMappings", MappingsFormat.TINY2, mappingsModel);
-            mappingsTask.sourceJar = new dev.lukebemish.taskgraphrunner.model.Input.TaskInput(config.aliases.get("binaryObf"));
+            mappingsTask.sourceJar = sourceJar;
             config.tasks.add(mappingsTask);
             config.tasks.forEach(task -> {
                 task.inputs().forEach(handle -> {
@@ -162,6 +169,13 @@ protected Config makeConfig(@Nullable MappingsStructure mappings, boolean hasAcc
     @Optional
     public abstract Property<MappingsStructure> getMappings();
 
+    /**
+     * The mappings of other installations, whose sub-structures in common with {@link #getMappings()} are evaluated
+     * as tasks that taskgraphrunner's cache can share between installations.
+     */
+    @Input
+    public abstract ListProperty<MappingsStructure> getOtherInstallationMappings();
+
     @Internal
     protected abstract Property<Boolean> getHasAccessTransformers();
     @Internal
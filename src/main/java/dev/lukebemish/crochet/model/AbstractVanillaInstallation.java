@@ -21,6 +21,7 @@
 import org.jetbrains.annotations.ApiStatus;
 
 import javax.inject.Inject;
+import java.util.Objects;
 
 public abstract class AbstractVanillaInstallation extends LocalMinecraftInstallation {
     final Project project;
@@ -44,6 +45,12 @@ public AbstractVanillaInstallation(String name, CrochetExtension extension) {
         vanillaConfigMaker.getAccessTransformers().from(this.accessTransformersPath);
         vanillaConfigMaker.getInjectedInterfaces().from(this.injectedInterfacesPath);
         vanillaConfigMaker.getMappings().set(getDependencies().getMappings());
+        vanillaConfigMaker.getOtherInstallationMappings().set(project.provider(() -> extension.getInstallations().withType(AbstractVanillaInstallation.class).stream()
+            .filter(installation -> installation != this)
+            .map(installation -> installation.vanillaConfigMaker.getMappings().getOrNull())
+            .filter(Objects::nonNull)
+            .toList()
+        ));
         vanillaConfigMaker.getDistribution().set(getDistribution());
         this.binaryArtifactsTask.configure(t -> t.getConfigMaker().set(vanillaConfigMaker));
 
@@ -282,7 +282,9 @@ void forRun(Run run, RunType runType) {
         // TODO: figure out setting java version attribute on run classpath?
 
         var remapClasspathFile = crochetExtension.project.getLayout().getBuildDirectory().file("crochet/runs/"+run.getName()+"/remapClasspath.txt");
-        var remapClasspath = crochetExtension.project.getTasks().register("crochet"+ StringUtils.capitalize(getName())+StringUtils.capitalize(run.getName())+"RemapClasspath", MakeRemapClasspathFile.class, task -> {
+        var remapClasspathTaskName = "crochet"+ StringUtils.capitalize(getName())+StringUtils.capitalize(run.getName())+"RemapClasspath";
+        TaskUtils.recordOwner(crochetExtension.project.getTasks(), remapClasspathTaskName, MakeRemapClasspathFile.class, run.getName());
+        var remapClasspath = crochetExtension.project.getTasks().register(remapClasspathTaskName, MakeRemapClasspathFile.class, task -> {
             task.getRemapClasspathFile().set(remapClasspathFile);
             task.getRemapClasspath().from(remapClasspathConfiguration);
             task.dependsOn(mappingsClasspath);
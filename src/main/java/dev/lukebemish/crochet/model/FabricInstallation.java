@@ -92,6 +92,7 @@ public FabricInstallation(String name, CrochetExtension extension) {
         this.vanillaConfigMaker.getSidedAnnotation().set(SingleVersionGenerator.Options.SidedAnnotation.FABRIC);
         this.fabricConfigMaker = project.getObjects().newInstance(FabricInstallationArtifacts.class);
         fabricConfigMaker.getWrapped().set(vanillaConfigMaker);
+        fabricConfigMaker.getMappingsCacheDirectory().set(new File(project.getGradle().getGradleUserHomeDir(), "caches/crochet/mappings"));
 
         this.extractFabricForDependencies = TaskUtils.registerInternal(this, ExtractFabricDependencies.class, name, "extractFromFabricDependencies", task -> {
             task.getOutputDirectory().set(workingDirectory.get().dir("extracted"));
@@ -104,8 +105,8 @@ public FabricInstallation(String name, CrochetExtension extension) {
         var namedToIntermediaryFile = workingDirectory.map(dir -> dir.file("runner-named-to-intermediary.tiny"));
 
         this.binaryArtifactsTask.configure(task -> {
-            task.getTargets().add(TaskGraphExecution.GraphOutput.of("intermediaryToNamedMappings.output", intermediaryToNamedFile, project.getObjects()));
-            task.getTargets().add(TaskGraphExecution.GraphOutput.of("namedToIntermediaryMappings.output", namedToIntermediaryFile, project.getObjects()));
+            task.getTargets().add(TaskGraphExecution.GraphOutput.of("intermediaryToNamedMappings", intermediaryToNamedFile, project.getObjects()));
+            task.getTargets().add(TaskGraphExecution.GraphOutput.of("namedToIntermediaryMappings", namedToIntermediaryFile, project.getObjects()));
             task.getConfigMaker().set(fabricConfigMaker);
         });
 
@@ -496,7 +497,9 @@ void forRun(Run run, RunType runType) {
         // TODO: figure out setting java version attribute on run classpath?
 
         var remapClasspathFile = project.getLayout().getBuildDirectory().file("crochet/runs/"+run.getName()+"/remapClasspath.txt");
-        var remapClasspath = project.getTasks().register("crochet"+StringUtils.capitalize(getName())+StringUtils.capitalize(run.getName())+"RemapClasspath", MakeRemapClasspathFile.class, task -> {
+        var remapClasspathTaskName = "crochet"+StringUtils.capitalize(getName())+StringUtils.capitalize(run.getName())+"RemapClasspath";
+        TaskUtils.recordOwner(project.getTasks(), remapClasspathTaskName, MakeRemapClasspathFile.class, run.getName());
+        var remapClasspath = project.getTasks().register(remapClasspathTaskName, MakeRemapClasspathFile.class, task -> {
             task.getRemapClasspathFile().set(remapClasspathFile);
             task.getRemapClasspath().from(remapClasspathConfiguration);
             task.dependsOn(mappingsClasspath);
@@ -104,6 +104,19 @@ private String getTaskName(String name, @Nullable String prefix, @Nullable Strin
 
     private boolean bundled = false;
 
+    private final List<TaskProvider<TaskGraphExecution>> modRemapTasks = new ArrayList<>();
+
+    /**
+     * Mod remapping tasks for different classpaths of the same installation mostly remap the same jars, which the
+     * remapper caches by content and reachable classpath API. Ordering them one after another means shared jars are
+     * remapped once and then served from that cache, rather than remapped concurrently by each task.
+     */
+    private void sequenceModRemapping(TaskProvider<TaskGraphExecution> remapTask) {
+        var earlier = List.copyOf(modRemapTasks);
+        modRemapTasks.add(remapTask);
+        remapTask.configure(task -> task.mustRunAfter(earlier));
+    }
+
     void forNamedBundle(String name, FabricRemapDependencies dependencies, ConsumableConfiguration remappedCompileClasspath, ConsumableConfiguration excludeCompile, ConsumableConfiguration remappedRuntimeClasspath, ConsumableConfiguration excludeRuntime) {
         if (bundled) {
             throw new IllegalStateException("Bundle already made for installation "+minecraftInstallation.getName()+" in "+project.getPath());
@@ -307,6 +320,7 @@ void forNamedBundle(String name, FabricRemapDependencies dependencies, Consumabl
             task.getClasspath().from(project.getConfigurations().named(CrochetProjectPlugin.TASK_GRAPH_RUNNER_CONFIGURATION_NAME));
         });
         remappedCompileClasspath.getArtifacts().addAllLater(remapCompileMods.zip(compileArtifactsList, (t, l) -> l));
+        sequenceModRemapping(remapCompileMods);
 
         ListProperty<PublishArtifact> runtimeArtifactsList = project.getObjects().listProperty(PublishArtifact.class);
         var remapRuntimeMods = TaskUtils.registerInternal(project, TaskGraphExecution.class, name, "remapRuntimeClasspath", task -> {
@@ -333,6 +347,7 @@ void forNamedBundle(String name, FabricRemapDependencies dependencies, Consumabl
             task.getClasspath().from(project.getConfigurations().named(CrochetProjectPlugin.TASK_GRAPH_RUNNER_CONFIGURATION_NAME));
         });
         remappedRuntimeClasspath.getArtifacts().addAllLater(remapRuntimeMods.zip(runtimeArtifactsList, (t, l) -> l));
+        sequenceModRemapping(remapRuntimeMods);
 
         var remapCompileModSources = TaskUtils.registerInternal(project, TaskGraphExecution.class, name, "remapCompileClasspathSources", task -> {
             var configMaker = project.getObjects().newInstance(RemapModsSourcesConfigMaker.class);
@@ -600,6 +615,7 @@ public void setNext(Consumer<Configuration> next) {
                         )));
                     };
 
+                    TaskUtils.recordOwner(project.getTasks(), sourceSet.getTaskName("remap", "jar"), TaskGraphExecution.class, sourceSet.getName());
                     var remapJarTask = project.getTasks().register(sourceSet.getTaskName("remap", "jar"), TaskGraphExecution.class, task -> {
                         configurator.accept(task, jarTask.get());
                     });
@@ -670,6 +686,7 @@ public void setNext(Consumer<Configuration> next) {
                     AtomicBoolean registered = new AtomicBoolean(false);
 
                     var remapTaskName = sourceSet.getTaskName("remap", "SourcesJar");
+                    TaskUtils.recordOwner(project.getTasks(), remapTaskName, TaskGraphExecution.class, sourceSet.getName());
 
                     Consumer<Jar> maybeConfigure = jarTask -> {
                         if (registered.compareAndSet(false, true)) {
@@ -837,6 +854,7 @@ public void setNext(Consumer<Configuration> next) {
             task.getClasspath().from(project.getConfigurations().named(CrochetProjectPlugin.TASK_GRAPH_RUNNER_CONFIGURATION_NAME));
         });
         remappedCompileMods.builtBy(remapCompileMods);
+        sequenceModRemapping(remapCompileMods);
 
         var remapCompileModSources = TaskUtils.registerInternal(project, TaskGraphExecution.class, sourceSet.getName(), "remapCompileClasspathSources", task -> {
             var configMaker = project.getObjects().newInstance(RemapModsSourcesConfigMaker.class);
@@ -987,7 +1005,10 @@ Configuration forRunRemapping(Run run, RunType runType) {
         var remappedMods = project.files();
         project.getDependencies().add(remappedClasspath.getName(), remappedMods);
 
-        var remapMods = project.getTasks().register("crochetRemap"+StringUtils.capitalize(run.getName())+"RunClasspath", TaskGraphExecution.class, task -> {
+        var remapModsTaskName = "crochetRemap"+StringUtils.capitalize(run.getName())+"RunClasspath";
+        TaskUtils.recordOwner(project.getTasks(), remapModsTaskName, TaskGraphExecution.class, run.getName());
+        TaskUtils.recordOwner(project.getTasks(), remapModsTaskName+"Sources", TaskGraphExecution.class, run.getName());
+        var remapMods = project.getTasks().register(remapModsTaskName, TaskGraphExecution.class, task -> {
             var configMaker = project.getObjects().newInstance(RemapModsConfigMaker.class);
             configMaker.setup(task, modClasspath, excludedClasspath, workingDirectory().get().dir("runClasspath").dir(run.getName()), remappedMods);
             task.dependsOn(intermediaryToNamedFlat());
@@ -1000,8 +1021,9 @@ Configuration forRunRemapping(Run run, RunType runType) {
             task.getClasspath().from(project.getConfigurations().named(CrochetProjectPlugin.TASK_GRAPH_RUNNER_CONFIGURATION_NAME));
         });
         remappedMods.builtBy(remapMods);
+        sequenceModRemapping(remapMods);
 
-        var remapModSources = project.getTasks().register("crochetRemap"+StringUtils.capitalize(run.getName())+"RunClasspathSources", TaskGraphExecution.class, task -> {
+        var remapModSources = project.getTasks().register(remapModsTaskName+"Sources", TaskGraphExecution.class, task -> {
             var configMaker = project.getObjects().newInstance(RemapModsSourcesConfigMaker.class);
             configMaker.setup(task, modClasspath, excludedClasspath, workingDirectory().get().dir("runClasspathSources").dir(run.getName()));
             task.dependsOn(intermediaryToNamedFlat());
@@ -3,6 +3,7 @@
 import dev.lukebemish.crochet.internal.ConfigurationUtils;
 import dev.lukebemish.crochet.internal.CrochetProjectPlugin;
 import dev.lukebemish.crochet.internal.IdeaModelHandlerPlugin;
+import dev.lukebemish.crochet.internal.TaskUtils;
 import dev.lukebemish.crochet.internal.tasks.GenerateArgFiles;
 import org.apache.commons.lang3.StringUtils;
 import org.gradle.api.Action;
@@ -68,7 +69,9 @@ public Run(String name) {
         this.getToolchain().getVendor().convention(rootToolchain.getVendor());
         this.getToolchain().getImplementation().convention(rootToolchain.getImplementation());
 
-        this.argFilesTask = getProject().getTasks().register("generate"+ StringUtils.capitalize(name)+"ArgFiles", GenerateArgFiles.class, task -> {
+        var argFilesTaskName = "generate"+ StringUtils.capitalize(name)+"ArgFiles";
+        TaskUtils.recordOwner(getProject().getTasks(), argFilesTaskName, GenerateArgFiles.class, name);
+        this.argFilesTask = getProject().getTasks().register(argFilesTaskName, GenerateArgFiles.class, task -> {
             task.setGroup("crochet setup");
             task.getArgFile().convention(getProject().getLayout().getBuildDirectory().file("crochet/runs/"+name+"/args.txt"));
             task.getJvmArgFile().convention(getProject().getLayout().getBuildDirectory().file("crochet/runs/"+name+"/jvmargs.txt"));
@@ -0,0 +1,195 @@
+package dev.lukebemish.crochet.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Generates a local maven repository of fake fabric mods in the intermediary namespace, standing in for the mods of a
+ * large modpack. Each mod has a fabric.mod.json, an access widener and injected interfaces targeting real intermediary
+ * classes, and a few classes referencing game types; every tenth mod also nests a library jar. Output is deterministic,
+ * so that regenerating the repository does not invalidate anything built from it.
+ */
+final class ModpackFixtures {
+    static final String GROUP = "dev.lukebemish.crochet.modpack";
+    static final String VERSION = "1.0.0";
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+    private static final long ENTRY_TIME = 315532800000L;
+    private static final int CLASSES_PER_MOD = 8;
+
+    // Item, ItemStack, Block, BlockState, Entity, PlayerEntity, World, ServerWorld, BlockPos and Identifier; their
+    // intermediary names are stable across versions
+    private static final String[] TARGETS = {
+        "net/minecraft/class_1792",
+        "net/minecraft/class_1799",
+        "net/minecraft/class_2248",
+        "net/minecraft/class_2680",
+        "net/minecraft/class_1297",
+        "net/minecraft/class_1657",
+        "net/minecraft/class_1937",
+        "net/minecraft/class_3218",
+        "net/minecraft/class_2338",
+        "net/minecraft/class_2960"
+    };
+
+    private final int mods;
+
+    ModpackFixtures(int mods) {
+        this.mods = mods;
+    }
+
+    private static String artifactId(int mod) {
+        return "mod" + mod;
+    }
+
+    void writeRepository(Path repository) throws IOException {
+        for (int mod = 0; mod < mods; mod++) {
+            var artifactId = artifactId(mod);
+            var directory = repository.resolve(GROUP.replace('.', '/')).resolve(artifactId).resolve(VERSION);
+            Files.createDirectories(directory);
+            Files.writeString(directory.resolve(artifactId + "-" + VERSION + ".pom"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                  <modelVersion>4.0.0</modelVersion>
+                  <groupId>%s</groupId>
+                  <artifactId>%s</artifactId>
+                  <version>%s</version>
+                </project>
+                """.formatted(GROUP, artifactId, VERSION), StandardCharsets.UTF_8);
+            Files.write(directory.resolve(artifactId + "-" + VERSION + ".jar"), modJar(mod));
+        }
+    }
+
+    private static byte[] modJar(int mod) throws IOException {
+        var id = artifactId(mod);
+        var modPackage = "com/example/modpack/" + id + "/";
+        var injected = modPackage + "Injected";
+        var bytes = new ByteArrayOutputStream();
+        try (var jar = openJar(bytes)) {
+            write(jar, injected + ".class", injectedInterface(injected));
+            for (int i = 0; i < CLASSES_PER_MOD; i++) {
+                write(jar, modPackage + "Class" + i + ".class", modClass(modPackage + "Class" + i, TARGETS[(mod + i) % TARGETS.length], TARGETS[(mod * 3 + i) % TARGETS.length]));
+            }
+
+            var accessWidener = new StringBuilder("accessWidener\tv2\tintermediary\n");
+            var injections = new JsonObject();
+            for (int i = 0; i < 3; i++) {
+                var target = TARGETS[(mod + i * 4) % TARGETS.length];
+                accessWidener.append(i == 0 ? "extendable" : "accessible").append("\tclass\t").append(target).append('\n');
+                var interfaces = new JsonArray();
+                interfaces.add(injected);
+                injections.add(target, interfaces);
+            }
+            write(jar, id + ".accesswidener", accessWidener.toString().getBytes(StandardCharsets.UTF_8));
+
+            var fmj = fabricModJson(id);
+            fmj.addProperty("accessWidener", id + ".accesswidener");
+            var custom = new JsonObject();
+            custom.add("loom:injected_interfaces", injections);
+            fmj.add("custom", custom);
+            if (mod % 10 == 0) {
+                var nested = "META-INF/jars/lib" + mod + ".jar";
+                write(jar, nested, libraryJar("lib" + mod));
+                var jars = new JsonArray();
+                var entry = new JsonObject();
+                entry.addProperty("file", nested);
+                jars.add(entry);
+                fmj.add("jars", jars);
+            }
+            write(jar, "fabric.mod.json", GSON.toJson(fmj).getBytes(StandardCharsets.UTF_8));
+            write(jar, "assets/" + id + "/lang/en_us.json", ("{\"item." + id + ".thing\": \"Thing\"}").getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] libraryJar(String id) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var jar = openJar(bytes)) {
+            write(jar, "com/example/modpack/" + id + "/Library.class", modClass("com/example/modpack/" + id + "/Library", TARGETS[0], TARGETS[1]));
+            write(jar, "fabric.mod.json", GSON.toJson(fabricModJson(id)).getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static JsonObject fabricModJson(String id) {
+        var fmj = new JsonObject();
+        fmj.addProperty("schemaVersion", 1);
+        fmj.addProperty("id", id);
+        fmj.addProperty("version", VERSION);
+        fmj.addProperty("environment", "*");
+        var depends = new JsonObject();
+        depends.addProperty("fabricloader", ">=0.16.0");
+        depends.addProperty("minecraft", "~1.21.4");
+        fmj.add("depends", depends);
+        return fmj;
+    }
+
+    private static byte[] injectedInterface(String name) {
+        var writer = new ClassWriter(0);
+        writer.visit(Opcodes.V21, Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, name, null, "java/lang/Object", null);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static byte[] modClass(String name, String held, String returned) {
+        var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V21, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+        writer.visitField(Opcodes.ACC_PRIVATE, "held", "L" + held + ";", null, null).visitEnd();
+
+        var constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        var method = writer.visitMethod(Opcodes.ACC_PUBLIC, "use", "(L" + held + ";)L" + returned + ";", null, null);
+        method.visitCode();
+        method.visitVarInsn(Opcodes.ALOAD, 0);
+        method.visitVarInsn(Opcodes.ALOAD, 1);
+        method.visitFieldInsn(Opcodes.PUTFIELD, name, "held", "L" + held + ";");
+        method.visitInsn(Opcodes.ACONST_NULL);
+        method.visitInsn(Opcodes.ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static JarOutputStream openJar(ByteArrayOutputStream output) throws IOException {
+        var manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Fabric-Mapping-Namespace", "intermediary");
+        var jar = new JarOutputStream(output);
+        var entry = new JarEntry("META-INF/MANIFEST.MF");
+        entry.setTime(ENTRY_TIME);
+        jar.putNextEntry(entry);
+        manifest.write(jar);
+        jar.closeEntry();
+        return jar;
+    }
+
+    private static void write(JarOutputStream jar, String name, byte[] bytes) throws IOException {
+        var entry = new JarEntry(name);
+        entry.setTime(ENTRY_TIME);
+        jar.putNextEntry(entry);
+        jar.write(bytes);
+        jar.closeEntry();
+    }
+}
@@ -0,0 +1,299 @@
+package dev.lukebemish.crochet.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.BuildTask;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Times {@code crochetIdeSetup} for a project depending on a generated modpack, laid out like the {@code test}
+ * project's fabric subproject. Each iteration syncs once cold, in a fresh copy of the project and a fresh Gradle user
+ * home, and once warm, again in the same copy and home. A separate Gradle user home is kept between runs of the
+ * benchmark and primed by a single untimed sync the first time; cold homes start from a copy of its dependency cache
+ * and of taskgraphrunner's downloads, but not of crochet's caches or taskgraphrunner's task outputs, so those are
+ * rebuilt by every cold sync. Every timed sync runs offline; the modpack itself is served from a local maven
+ * repository.
+ */
+public final class SyncBenchmark {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final String TASK = "crochetIdeSetup";
+    private static final String PRIMED_MARKER = "crochet-sync-benchmark-primed";
+    private static final String DEPENDENCY_CACHE = "caches/modules-2";
+    private static final String TASK_GRAPH_RUNNER_CACHE = "caches/taskgraphrunner";
+    // Everything else in taskgraphrunner's cache is downloaded game jars, libraries and assets
+    private static final Set<String> TASK_GRAPH_RUNNER_OUTPUTS = Set.of("results", "intermediates", "locks");
+
+    record Run(String kind, int iteration, long millis, int tasks, int executedTasks, int remapTasks) {}
+
+    record Summary(String kind, long minMillis, long medianMillis, long maxMillis) {}
+
+    record Results(int mods, int iterations, List<Summary> summaries, List<Run> runs) {}
+
+    private final File gradleInstallation;
+    private final Path workDirectory;
+    private final int mods;
+
+    private SyncBenchmark(File gradleInstallation, Path workDirectory, int mods) {
+        this.gradleInstallation = gradleInstallation;
+        this.workDirectory = workDirectory;
+        this.mods = mods;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option but got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        var gradleInstallation = new File(required(options, "gradle-installation"));
+        var workDirectory = Path.of(required(options, "work-dir")).toAbsolutePath();
+        var output = Path.of(required(options, "output")).toAbsolutePath();
+        int mods = Integer.parseInt(options.getOrDefault("mods", "300"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "3"));
+
+        var results = new SyncBenchmark(gradleInstallation, workDirectory, mods).run(iterations);
+
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, GSON.toJson(results), StandardCharsets.UTF_8);
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%s with %d mods, %d iterations:%n", TASK, mods, iterations);
+        for (var summary : results.summaries()) {
+            System.out.printf(Locale.ROOT, "  %-5s min %6d ms, median %6d ms, max %6d ms%n", summary.kind(), summary.minMillis(), summary.medianMillis(), summary.maxMillis());
+        }
+        System.out.println("Results written to " + output.toUri());
+    }
+
+    private static String required(Map<String, String> options, String name) {
+        var value = options.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing required option --" + name);
+        }
+        return value;
+    }
+
+    private Results run(int iterations) throws IOException {
+        var repository = workDirectory.resolve("repository");
+        var gradleHome = workDirectory.resolve("gradle-home");
+        var coldGradleHome = workDirectory.resolve("cold-gradle-home");
+        var project = workDirectory.resolve("project");
+
+        delete(repository);
+        new ModpackFixtures(mods).writeRepository(repository);
+
+        if (!Files.exists(gradleHome.resolve(PRIMED_MARKER))) {
+            System.out.println("Priming " + gradleHome + "; this sync is not timed and needs network access");
+            writeProject(project, repository);
+            sync(project, gradleHome, false);
+            stopDaemons(gradleHome);
+            Files.createDirectories(gradleHome);
+            Files.writeString(gradleHome.resolve(PRIMED_MARKER), "");
+        }
+
+        var runs = new ArrayList<Run>();
+        for (int i = 0; i < iterations; i++) {
+            writeProject(project, repository);
+            delete(coldGradleHome);
+            seedColdHome(gradleHome, coldGradleHome);
+            try {
+                runs.add(timed("cold", i, project, coldGradleHome));
+                runs.add(timed("warm", i, project, coldGradleHome));
+            } finally {
+                // Otherwise each iteration's daemon outlives its home, and they pile up for later iterations
+                stopDaemons(coldGradleHome);
+            }
+        }
+        return new Results(mods, iterations, List.of(summarize("cold", runs), summarize("warm", runs)), runs);
+    }
+
+    private static void seedColdHome(Path primedHome, Path coldHome) throws IOException {
+        copy(primedHome.resolve(DEPENDENCY_CACHE), coldHome.resolve(DEPENDENCY_CACHE));
+        var taskGraphRunnerCache = primedHome.resolve(TASK_GRAPH_RUNNER_CACHE);
+        if (Files.isDirectory(taskGraphRunnerCache)) {
+            try (var children = Files.list(taskGraphRunnerCache)) {
+                for (var child : children.toList()) {
+                    var name = child.getFileName().toString();
+                    if (Files.isDirectory(child) && !TASK_GRAPH_RUNNER_OUTPUTS.contains(name)) {
+                        copy(child, coldHome.resolve(TASK_GRAPH_RUNNER_CACHE).resolve(name));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the Gradle daemons, started by TestKit, that use the given Gradle user home.
+     */
+    private void stopDaemons(Path gradleHome) throws IOException {
+        var windows = System.getProperty("os.name").toLowerCase(Locale.ROOT).contains("windows");
+        var executable = new File(gradleInstallation, windows ? "bin/gradle.bat" : "bin/gradle");
+        var process = new ProcessBuilder(executable.getAbsolutePath(), "--stop", "--gradle-user-home", gradleHome.toString())
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        try {
+            if (process.waitFor() != 0) {
+                System.err.println("Could not stop the Gradle daemons using " + gradleHome);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private Run timed(String kind, int iteration, Path project, Path gradleHome) {
+        long start = System.nanoTime();
+        var result = sync(project, gradleHome, true);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        var tasks = result.getTasks();
+        int executed = (int) tasks.stream().filter(task -> task.getOutcome() == TaskOutcome.SUCCESS).count();
+        int remap = (int) tasks.stream()
+            .filter(task -> task.getOutcome() == TaskOutcome.SUCCESS)
+            .map(BuildTask::getPath)
+            .filter(path -> path.toLowerCase(Locale.ROOT).contains("remap"))
+            .count();
+        System.out.printf(Locale.ROOT, "%s sync %d: %d ms, %d tasks, %d executed, %d remapping%n", kind, iteration, millis, tasks.size(), executed, remap);
+        return new Run(kind, iteration, millis, tasks.size(), executed, remap);
+    }
+
+    private BuildResult sync(Path project, Path gradleHome, boolean offline) {
+        var arguments = new ArrayList<>(List.of(TASK, "--stacktrace"));
+        if (offline) {
+            arguments.add("--offline");
+        }
+        return GradleRunner.create()
+            .withGradleInstallation(gradleInstallation)
+            .withTestKitDir(gradleHome.toFile())
+            .withProjectDir(project.toFile())
+            .withPluginClasspath()
+            .withArguments(arguments)
+            .build();
+    }
+
+    private static Summary summarize(String kind, List<Run> runs) {
+        var millis = runs.stream().filter(run -> run.kind().equals(kind)).mapToLong(Run::millis).sorted().toArray();
+        if (millis.length == 0) {
+            return new Summary(kind, 0, 0, 0);
+        }
+        return new Summary(kind, millis[0], millis[millis.length / 2], millis[millis.length - 1]);
+    }
+
+    /**
+     * Writes a fresh copy of the benchmarked project, discarding any earlier one along with its build outputs and
+     * configuration cache.
+     */
+    private void writeProject(Path project, Path repository) throws IOException {
+        delete(project);
+        Files.createDirectories(project.resolve("src/main/java/benchmark"));
+        Files.writeString(project.resolve("settings.gradle"), """
+            rootProject.name = 'crochet-sync-benchmark'
+            """, StandardCharsets.UTF_8);
+        Files.writeString(project.resolve("gradle.properties"), """
+            org.gradle.jvmargs=-Xmx3g
+            org.gradle.configuration-cache=true
+            org.gradle.parallel=true
+            """, StandardCharsets.UTF_8);
+        Files.writeString(project.resolve("build.gradle"), """
+            plugins {
+                id 'java-library'
+                id 'dev.lukebemish.crochet'
+            }
+
+            repositories {
+                maven {
+                    name = 'Modpack'
+                    url = uri('%s')
+                }
+                mavenCentral()
+                maven {
+                    name = "ParchmentMC"
+                    url = uri("https://maven.parchmentmc.org/")
+                }
+            }
+
+            crochet {
+                fabricInstallation('fabric') {
+                    minecraft = '1.21.4'
+
+                    dependencies {
+                        loader 'net.fabricmc:fabric-loader:0.16.9'
+                        mappings = chained {
+                            add official()
+                            add(artifact 'org.parchmentmc.data:parchment-1.21.4:2025.02.16@zip')
+                        }
+                    }
+
+                    forFeature(project.sourceSets.main) {
+                        (0..<%d).each {
+                            modImplementation "%s:mod${it}:%s"
+                        }
+                    }
+                }
+            }
+            """.formatted(repository.toUri(), mods, ModpackFixtures.GROUP, ModpackFixtures.VERSION), StandardCharsets.UTF_8);
+        Files.writeString(project.resolve("src/main/java/benchmark/Benchmark.java"), """
+            package benchmark;
+
+            public class Benchmark {}
+            """, StandardCharsets.UTF_8);
+    }
+
+    private static void copy(Path source, Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                // Lock files belong to whichever daemon last used the primed home
+                if (!file.getFileName().toString().endsWith(".lock")) {
+                    Files.copy(file, target.resolve(source.relativize(file).toString()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
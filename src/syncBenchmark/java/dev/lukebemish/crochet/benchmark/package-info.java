@@ -0,0 +1,4 @@
+@NullMarked
+package dev.lukebemish.crochet.benchmark;
+
+import org.jspecify.annotations.NullMarked;
@@ -0,0 +1,104 @@
+package dev.lukebemish.crochet.tools;
+
+import net.fabricmc.accesswidener.AccessWidenerReader;
+import net.neoforged.srgutils.IMappingFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merging and converting the access wideners of every mod into an access transformer for the game jar, and remapping a
+ * single mod's access widener while its jar is remapped.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AccessWidenersBenchmark {
+    @Param({"4000"})
+    int gameClasses;
+
+    @Param({"20"})
+    int files;
+
+    @Param({"2000"})
+    int entriesPerFile;
+
+    private Path directory;
+    private String[] arguments;
+    private byte[] accessWidener;
+    private AccessWidenerReader.Header header;
+    private RemapMods remapMods;
+    private CompiledRemapper remapper;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Fixtures.tempDirectory("access-wideners");
+        var fixtures = new Fixtures(gameClasses, 8, 12);
+        var mappings = directory.resolve("mappings.tiny");
+        fixtures.writeMappings(mappings);
+        var game = directory.resolve("game-named.jar");
+        fixtures.writeGameJar(game, true);
+
+        var args = new ArrayList<>(List.of(
+            "transform-access-wideners",
+            "--mappings", mappings.toString(),
+            "--target", game.toString(),
+            "--output", directory.resolve("accesstransformer.cfg").toString()
+        ));
+        for (int i = 0; i < files; i++) {
+            var file = directory.resolve("aw" + i + ".accesswidener");
+            fixtures.writeAccessWidener(file, entriesPerFile, i);
+            args.add("--input");
+            args.add(file.toString());
+        }
+        arguments = args.toArray(String[]::new);
+
+        accessWidener = Files.readAllBytes(directory.resolve("aw0.accesswidener"));
+        try (var reader = AccessWideners.reader(new ByteArrayInputStream(accessWidener))) {
+            header = AccessWideners.peekHeader(reader);
+        }
+        remapMods = new RemapMods();
+        remapMods.fromNs = Fixtures.FROM_NS;
+        remapMods.toNs = Fixtures.TO_NS;
+        remapper = new CompiledRemapper(IMappingFile.load(mappings.toFile()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Fixtures.delete(directory);
+    }
+
+    @Benchmark
+    public void transformToAccessTransformer() {
+        Fixtures.run(arguments);
+    }
+
+    @Benchmark
+    public byte[] remapModAccessWidener() throws IOException {
+        var output = new ByteArrayOutputStream(accessWidener.length);
+        remapMods.remapAccessWidener(header, new ByteArrayInputStream(accessWidener), output, remapper);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,275 @@
+package dev.lukebemish.crochet.tools;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+/**
+ * Generates synthetic inputs shaped like those of a Fabric sync: intermediary to named mappings over a game jar, mod
+ * jars compiled against the intermediary names, and access widener and interface injection files referencing both.
+ * Everything is derived from a seed, so that runs are comparable.
+ */
+final class Fixtures {
+    static final String FROM_NS = "intermediary";
+    static final String TO_NS = "named";
+
+    private final int classes;
+    private final int fieldsPerClass;
+    private final int methodsPerClass;
+
+    Fixtures(int classes, int fieldsPerClass, int methodsPerClass) {
+        this.classes = classes;
+        this.fieldsPerClass = fieldsPerClass;
+        this.methodsPerClass = methodsPerClass;
+    }
+
+    static String intermediaryClass(int index) {
+        return "net/minecraft/class_" + index;
+    }
+
+    static String namedClass(int index) {
+        return "net/minecraft/" + PACKAGES[index % PACKAGES.length] + "/Named" + index;
+    }
+
+    private static final String[] PACKAGES = {"world", "world/entity", "world/level", "client/render", "server/network", "util"};
+
+    private static int fieldId(int owner, int field) {
+        return owner * 1000 + field;
+    }
+
+    private static int methodId(int owner, int method) {
+        return owner * 1000 + method;
+    }
+
+    private String fieldDescriptor(int owner, int field, boolean named) {
+        if (field % 3 == 0) {
+            return "I";
+        }
+        int type = (owner + field) % classes;
+        return "L" + (named ? namedClass(type) : intermediaryClass(type)) + ";";
+    }
+
+    private String methodDescriptor(int owner, int method, boolean named) {
+        int parameter = (owner * 7 + method) % classes;
+        var parameterName = named ? namedClass(parameter) : intermediaryClass(parameter);
+        return switch (method % 3) {
+            case 0 -> "()V";
+            case 1 -> "(L" + parameterName + ";I)Z";
+            default -> "(L" + parameterName + ";)L" + parameterName + ";";
+        };
+    }
+
+    /**
+     * Writes TINY2 mappings from intermediary to named names for every class, field and method.
+     */
+    void writeMappings(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (var writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("tiny\t2\t0\t" + FROM_NS + "\t" + TO_NS + "\n");
+            for (int c = 0; c < classes; c++) {
+                writer.write("c\t" + intermediaryClass(c) + "\t" + namedClass(c) + "\n");
+                for (int f = 0; f < fieldsPerClass; f++) {
+                    writer.write("\tf\t" + fieldDescriptor(c, f, false) + "\tfield_" + fieldId(c, f) + "\tnamedField" + f + "\n");
+                }
+                for (int m = 0; m < methodsPerClass; m++) {
+                    writer.write("\tm\t" + methodDescriptor(c, m, false) + "\tmethod_" + methodId(c, m) + "\tnamedMethod" + m + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the game jar, in named names as access wideners are applied to it, or in intermediary names as mods are
+     * remapped against it.
+     */
+    void writeGameJar(Path file, boolean named) throws IOException {
+        try (var jar = openJar(file, null)) {
+            for (int c = 0; c < classes; c++) {
+                var name = named ? namedClass(c) : intermediaryClass(c);
+                var writer = new ClassWriter(0);
+                writer.visit(Opcodes.V21, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+                for (int f = 0; f < fieldsPerClass; f++) {
+                    var fieldName = named ? "namedField" + f : "field_" + fieldId(c, f);
+                    writer.visitField(f % 2 == 0 ? Opcodes.ACC_PRIVATE : Opcodes.ACC_PROTECTED, fieldName, fieldDescriptor(c, f, named), null, null).visitEnd();
+                }
+                for (int m = 0; m < methodsPerClass; m++) {
+                    var methodName = named ? "namedMethod" + m : "method_" + methodId(c, m);
+                    // Only signatures matter to the tools, so no code is generated
+                    writer.visitMethod(m % 2 == 0 ? Opcodes.ACC_PRIVATE : Opcodes.ACC_PUBLIC, methodName, methodDescriptor(c, m, named), null, null).visitEnd();
+                }
+                writer.visitEnd();
+                write(jar, name + ".class", writer.toByteArray());
+            }
+        }
+    }
+
+    /**
+     * Writes a mod jar in intermediary names, with classes that extend, hold and call into game classes, along with the
+     * metadata, access widener and resources a typical mod carries.
+     */
+    void writeModJar(Path file, int mod, int modClasses, int accessWidenerEntries) throws IOException {
+        var random = new Random(mod);
+        var manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Fabric-Mapping-Namespace", FROM_NS);
+        try (var jar = openJar(file, manifest)) {
+            var modPackage = "com/example/mod" + mod + "/";
+            for (int i = 0; i < modClasses; i++) {
+                int parent = random.nextInt(classes);
+                int held = random.nextInt(classes);
+                var name = modPackage + "Class" + i;
+                var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+                writer.visit(Opcodes.V21, Opcodes.ACC_PUBLIC, name, null, intermediaryClass(parent), null);
+                writer.visitField(Opcodes.ACC_PRIVATE, "held", "L" + intermediaryClass(held) + ";", null, null).visitEnd();
+                for (int m = 0; m < Math.min(4, methodsPerClass); m++) {
+                    var descriptor = methodDescriptor(parent, m, false);
+                    // Overrides of game methods are renamed along with them
+                    var method = writer.visitMethod(Opcodes.ACC_PUBLIC, "method_" + methodId(parent, m), descriptor, null, null);
+                    method.visitCode();
+                    method.visitVarInsn(Opcodes.ALOAD, 0);
+                    method.visitFieldInsn(Opcodes.GETFIELD, name, "held", "L" + intermediaryClass(held) + ";");
+                    method.visitFieldInsn(Opcodes.GETFIELD, intermediaryClass(held), "field_" + fieldId(held, 1 % Math.max(1, fieldsPerClass)), fieldDescriptor(held, 1 % Math.max(1, fieldsPerClass), false));
+                    method.visitInsn(Opcodes.POP);
+                    method.visitVarInsn(Opcodes.ALOAD, 0);
+                    method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, intermediaryClass(parent), "method_" + methodId(parent, 0), "()V", false);
+                    switch (m % 3) {
+                        case 0 -> method.visitInsn(Opcodes.RETURN);
+                        case 1 -> {
+                            method.visitInsn(Opcodes.ICONST_0);
+                            method.visitInsn(Opcodes.IRETURN);
+                        }
+                        default -> {
+                            method.visitVarInsn(Opcodes.ALOAD, 1);
+                            method.visitInsn(Opcodes.ARETURN);
+                        }
+                    }
+                    method.visitMaxs(0, 0);
+                    method.visitEnd();
+                }
+                writer.visitEnd();
+                write(jar, name + ".class", writer.toByteArray());
+            }
+
+            var fmj = new JsonObject();
+            fmj.addProperty("schemaVersion", 1);
+            fmj.addProperty("id", "mod" + mod);
+            fmj.addProperty("version", "1.0.0");
+            fmj.addProperty("accessWidener", "mod" + mod + ".accesswidener");
+            fmj.add("jars", new JsonArray());
+            write(jar, "fabric.mod.json", Utils.GSON.toJson(fmj).getBytes(StandardCharsets.UTF_8));
+
+            var accessWidener = new StringBuilder();
+            writeAccessWidener(accessWidener, random, accessWidenerEntries);
+            write(jar, "mod" + mod + ".accesswidener", accessWidener.toString().getBytes(StandardCharsets.UTF_8));
+
+            write(jar, "META-INF/services/com.example.Service", (modPackage.replace('/', '.') + "Class0\n").getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < modClasses / 4; i++) {
+                var texture = new byte[512 + random.nextInt(2048)];
+                random.nextBytes(texture);
+                write(jar, "assets/mod" + mod + "/textures/texture" + i + ".png", texture);
+                write(jar, "assets/mod" + mod + "/lang/lang" + i + ".json", ("{\"key." + i + "\": \"Value " + i + "\"}").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Writes an access widener in intermediary names, mixing class, field and method entries.
+     */
+    void writeAccessWidener(Path file, int entries, long seed) throws IOException {
+        var accessWidener = new StringBuilder();
+        writeAccessWidener(accessWidener, new Random(seed), entries);
+        Files.writeString(file, accessWidener, StandardCharsets.UTF_8);
+    }
+
+    private void writeAccessWidener(StringBuilder out, Random random, int entries) {
+        out.append("accessWidener\tv2\t").append(FROM_NS).append('\n');
+        for (int i = 0; i < entries; i++) {
+            int owner = random.nextInt(classes);
+            switch (i % 4) {
+                case 0 -> out.append("accessible\tclass\t").append(intermediaryClass(owner)).append('\n');
+                case 1 -> {
+                    int field = random.nextInt(Math.max(1, fieldsPerClass));
+                    out.append(i % 8 == 1 ? "mutable" : "accessible").append("\tfield\t").append(intermediaryClass(owner))
+                        .append("\tfield_").append(fieldId(owner, field)).append('\t').append(fieldDescriptor(owner, field, false)).append('\n');
+                }
+                default -> {
+                    int method = random.nextInt(Math.max(1, methodsPerClass));
+                    out.append(i % 4 == 2 ? "accessible" : "extendable").append("\tmethod\t").append(intermediaryClass(owner))
+                        .append("\tmethod_").append(methodId(owner, method)).append('\t').append(methodDescriptor(owner, method, false)).append('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a Fabric interface injection file, some of whose interfaces are generic over game classes.
+     */
+    void writeInterfaceInjections(Path file, int entries, long seed) throws IOException {
+        var random = new Random(seed);
+        var json = new JsonObject();
+        for (int i = 0; i < entries; i++) {
+            var target = intermediaryClass(random.nextInt(classes));
+            var interfaces = json.getAsJsonArray(target);
+            if (interfaces == null) {
+                interfaces = new JsonArray();
+                json.add(target, interfaces);
+            }
+            interfaces.add(i % 2 == 0
+                ? "com/example/Injected" + i
+                : "com/example/Injected" + i + "<L" + intermediaryClass(random.nextInt(classes)) + ";>");
+        }
+        Files.writeString(file, Utils.GSON.toJson(json), StandardCharsets.UTF_8);
+    }
+
+    private static JarOutputStream openJar(Path file, Manifest manifest) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        OutputStream output = Files.newOutputStream(file);
+        return manifest == null ? new JarOutputStream(output) : new JarOutputStream(output, manifest);
+    }
+
+    private static void write(JarOutputStream jar, String name, byte[] bytes) throws IOException {
+        jar.putNextEntry(new JarEntry(name));
+        jar.write(bytes);
+        jar.closeEntry();
+    }
+
+    static Path tempDirectory(String name) throws IOException {
+        return Files.createTempDirectory("crochet-jmh-" + name);
+    }
+
+    static void delete(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void run(String... args) {
+        int code = Main.run(args);
+        if (code != 0) {
+            throw new IllegalStateException("Tool exited with " + code + ": " + String.join(" ", args));
+        }
+    }
+}
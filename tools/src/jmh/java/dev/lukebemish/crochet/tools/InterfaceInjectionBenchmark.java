@@ -0,0 +1,75 @@
+package dev.lukebemish.crochet.tools;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remapping and merging the interface injections of every mod into the NeoForm format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InterfaceInjectionBenchmark {
+    @Param({"4000"})
+    int gameClasses;
+
+    @Param({"20"})
+    int files;
+
+    @Param({"500"})
+    int entriesPerFile;
+
+    private Path directory;
+    private String[] arguments;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Fixtures.tempDirectory("interface-injection");
+        var fixtures = new Fixtures(gameClasses, 8, 12);
+        var mappings = directory.resolve("mappings.tiny");
+        fixtures.writeMappings(mappings);
+
+        var args = new ArrayList<>(List.of(
+            "transform-interface-injection",
+            "--mappings", mappings.toString(),
+            "--output", directory.resolve("interfaces.json").toString()
+        ));
+        for (int i = 0; i < files; i++) {
+            var file = directory.resolve("injections" + i + ".json");
+            fixtures.writeInterfaceInjections(file, entriesPerFile, i);
+            args.add("--input");
+            args.add(file.toString());
+        }
+        arguments = args.toArray(String[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Fixtures.delete(directory);
+    }
+
+    @Benchmark
+    public void transform() {
+        Fixtures.run(arguments);
+    }
+}
@@ -0,0 +1,99 @@
+package dev.lukebemish.crochet.tools;
+
+import net.neoforged.srgutils.IMappingFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading mappings, through the binary mappings cache and by parsing text, and remapping through the resulting remapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MappingsBenchmark {
+    private static final int LOOKUPS = 10_000;
+
+    @Param({"8000"})
+    int gameClasses;
+
+    private Path directory;
+    private Path mappings;
+    private MappingsCache cache;
+    private CompiledRemapper remapper;
+    private String[] owners;
+    private String[] descriptors;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Fixtures.tempDirectory("mappings");
+        mappings = directory.resolve("mappings.tiny");
+        new Fixtures(gameClasses, 8, 12).writeMappings(mappings);
+        cache = new MappingsCache(directory.resolve("cache"));
+        // Fills the cache, so that loadCached only ever reads it
+        remapper = new CompiledRemapper(cache.load(mappings).mappings());
+
+        var random = new Random(0);
+        owners = new String[LOOKUPS];
+        descriptors = new String[LOOKUPS];
+        names = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            int owner = random.nextInt(gameClasses);
+            int other = random.nextInt(gameClasses);
+            owners[i] = Fixtures.intermediaryClass(owner);
+            descriptors[i] = "(L" + Fixtures.intermediaryClass(other) + ";I)Z";
+            // Every third method of a class takes no arguments, so these lookups hit the mappings
+            names[i] = "method_" + (owner * 1000 + 3 * random.nextInt(4));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Fixtures.delete(directory);
+    }
+
+    @Benchmark
+    public IMappingFile loadText() throws IOException {
+        return IMappingFile.load(mappings.toFile());
+    }
+
+    @Benchmark
+    public IMappingFile loadCached() throws IOException {
+        return cache.load(mappings).mappings();
+    }
+
+    @Benchmark
+    public CompiledRemapper compile() throws IOException {
+        return new CompiledRemapper(cache.load(mappings).mappings());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void lookups(Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            blackhole.consume(remapper.map(owners[i]));
+            blackhole.consume(remapper.mapMethodDesc(descriptors[i]));
+            blackhole.consume(remapper.mapMethodName(owners[i], names[i], "()V"));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package dev.lukebemish.crochet.tools;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remapping a set of mod jars from intermediary to named names, as done for a project's mod dependencies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RemapModsBenchmark {
+    @Param({"2000"})
+    int gameClasses;
+
+    @Param({"8"})
+    int mods;
+
+    @Param({"200"})
+    int classesPerMod;
+
+    private Path directory;
+    private List<String> arguments;
+    private List<String> cachedArguments;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Fixtures.tempDirectory("remap-mods");
+        var fixtures = new Fixtures(gameClasses, 8, 12);
+        var mappings = directory.resolve("mappings.tiny");
+        fixtures.writeMappings(mappings);
+        var game = directory.resolve("game-intermediary.jar");
+        fixtures.writeGameJar(game, false);
+
+        arguments = new ArrayList<>(List.of(
+            "remap-mods",
+            "--mappings", mappings.toString(),
+            "--classpath", game.toString(),
+            "--from-ns", Fixtures.FROM_NS,
+            "--to-ns", Fixtures.TO_NS
+        ));
+        for (int i = 0; i < mods; i++) {
+            var mod = directory.resolve("mods/mod" + i + ".jar");
+            fixtures.writeModJar(mod, i, classesPerMod, 200);
+            arguments.add(mod.toString());
+            arguments.add(directory.resolve("out/mod" + i + ".jar").toString());
+        }
+        cachedArguments = new ArrayList<>(arguments);
+        cachedArguments.add("--cache-dir=" + directory.resolve("cache"));
+        cachedArguments.add("--mappings-cache-dir=" + directory.resolve("mappings-cache"));
+        // Fill both caches, so that the cached benchmark measures only hits
+        Fixtures.run(cachedArguments.toArray(String[]::new));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Fixtures.delete(directory);
+    }
+
+    @Benchmark
+    public void remap() {
+        Fixtures.run(arguments.toArray(String[]::new));
+    }
+
+    @Benchmark
+    public void remapFromCache() {
+        Fixtures.run(cachedArguments.toArray(String[]::new));
+    }
+}
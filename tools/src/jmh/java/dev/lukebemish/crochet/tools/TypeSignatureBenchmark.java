@@ -0,0 +1,63 @@
+package dev.lukebemish.crochet.tools;
+
+import dev.lukebemish.taskgraphrunner.signatures.TypeSignature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting injected interface signatures between the binary and NeoForm forms, as done for every interface injection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TypeSignatureBenchmark {
+    private static final int SIGNATURES = 1_000;
+
+    private String[] binary;
+    private String[] neo;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var random = new Random(0);
+        binary = new String[SIGNATURES];
+        neo = new String[SIGNATURES];
+        for (int i = 0; i < SIGNATURES; i++) {
+            binary[i] = switch (i % 3) {
+                case 0 -> "Lcom/example/Injected" + i + ";";
+                case 1 -> "Lcom/example/Injected" + i + "<L" + Fixtures.namedClass(random.nextInt(1000)) + ";>;";
+                default -> "Lcom/example/Injected" + i + "<L" + Fixtures.namedClass(random.nextInt(1000)) + ";Ljava/util/List<L" + Fixtures.namedClass(random.nextInt(1000)) + ";>;>;";
+            };
+            neo[i] = TypeSignature.fromBinary(binary[i]).neo();
+        }
+    }
+
+    @Benchmark
+    public void fromBinary(Blackhole blackhole) {
+        for (var signature : binary) {
+            blackhole.consume(TypeSignature.fromBinary(signature).neo());
+        }
+    }
+
+    @Benchmark
+    public void fromNeo(Blackhole blackhole) {
+        for (var signature : neo) {
+            blackhole.consume(TypeSignature.fromNeo(signature, name -> name.startsWith("net/minecraft/")).binary());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package dev.lukebemish.crochet.tools;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rewriting a mod jar in place with the edits made to remapped mods: fabric.mod.json members and an access widener,
+ * with every other entry copied through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ZipTransformsBenchmark {
+    @Param({"500"})
+    int classes;
+
+    private Path directory;
+    private Path jar;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Fixtures.tempDirectory("zip-transforms");
+        jar = directory.resolve("mod.jar");
+        new Fixtures(1000, 8, 12).writeModJar(jar, 0, classes, 500);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Fixtures.delete(directory);
+    }
+
+    @Benchmark
+    public int transform() throws IOException {
+        Map<String, ZipTransforms.IoUnaryOperator<JsonElement>> edits = new HashMap<>();
+        edits.put("jars", jars -> new JsonArray());
+        edits.put("custom", custom -> {
+            var object = new JsonObject();
+            object.add("loom:injected_interfaces", new JsonObject());
+            return object;
+        });
+        return ZipTransforms.create()
+            .withJsonMembers(Map.of("fabric.mod.json", edits))
+            .withStreaming(Map.of("mod0.accesswidener", (input, output) -> input.transferTo(output)))
+            .execute(jar);
+    }
+}
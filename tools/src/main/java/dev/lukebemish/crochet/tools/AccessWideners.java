@@ -0,0 +1,44 @@
+package dev.lukebemish.crochet.tools;
+
+import net.fabricmc.accesswidener.AccessWidenerReader;
+import net.fabricmc.accesswidener.AccessWidenerVisitor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads access wideners as streams, so that no file is buffered in full before being parsed.
+ */
+final class AccessWideners {
+    private AccessWideners() {}
+
+    // Far longer than any valid header line
+    private static final int MAX_HEADER_LENGTH = 8192;
+
+    static BufferedReader reader(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, AccessWidenerReader.ENCODING));
+    }
+
+    static BufferedReader reader(Path path) throws IOException {
+        return Files.newBufferedReader(path, AccessWidenerReader.ENCODING);
+    }
+
+    /**
+     * {@return the header of the access widener being read, without consuming it} The reader can then be passed to
+     * {@link #read(BufferedReader, AccessWidenerVisitor)} with a visitor chosen based on the header.
+     */
+    static AccessWidenerReader.Header peekHeader(BufferedReader reader) throws IOException {
+        reader.mark(MAX_HEADER_LENGTH);
+        var header = AccessWidenerReader.readHeader(reader);
+        reader.reset();
+        return header;
+    }
+
+    static void read(BufferedReader reader, AccessWidenerVisitor visitor) throws IOException {
+        new AccessWidenerReader(visitor).read(reader);
+    }
+}
@@ -0,0 +1,66 @@
+package dev.lukebemish.crochet.tools;
+
+import net.neoforged.srgutils.IMappingFile;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+@CommandLine.Command(
+    name = "chain-fabric-mappings",
+    description = "Chain named and intermediary mappings, writing the result in both directions"
+)
+class ChainFabricMappings implements Runnable {
+    @CommandLine.Option(
+        names = "--named-mappings",
+        description = "Mappings from named to obfuscated names",
+        required = true
+    )
+    Path namedMappings;
+
+    @CommandLine.Option(
+        names = "--reverse-named-mappings",
+        description = "Whether the named mappings instead map obfuscated to named names"
+    )
+    boolean reverseNamedMappings;
+
+    @CommandLine.Option(
+        names = "--intermediary-mappings",
+        description = "Mappings from obfuscated to intermediary names",
+        required = true
+    )
+    Path intermediaryMappings;
+
+    @CommandLine.Option(
+        names = "--named-to-intermediary",
+        description = "Output named to intermediary mappings file",
+        required = true
+    )
+    Path namedToIntermediaryOutput;
+
+    @CommandLine.Option(
+        names = "--intermediary-to-named",
+        description = "Output intermediary to named mappings file",
+        required = true
+    )
+    Path intermediaryToNamedOutput;
+
+    @Override
+    public void run() {
+        try {
+            IMappingFile named = IMappingFile.load(namedMappings.toFile());
+            if (reverseNamedMappings) {
+                named = named.reverse();
+            }
+            IMappingFile intermediary = IMappingFile.load(intermediaryMappings.toFile());
+
+            // Both directions come from the one in-memory chain, rather than reparsing a written file to reverse it
+            IMappingFile namedToIntermediary = named.chain(intermediary);
+            namedToIntermediary.write(namedToIntermediaryOutput.toAbsolutePath(), IMappingFile.Format.TINY, false);
+            namedToIntermediary.reverse().write(intermediaryToNamedOutput.toAbsolutePath(), IMappingFile.Format.TINY, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
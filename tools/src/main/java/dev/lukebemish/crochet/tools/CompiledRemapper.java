@@ -0,0 +1,80 @@
+package dev.lukebemish.crochet.tools;
+
+import net.neoforged.srgutils.IMappingFile;
+import org.objectweb.asm.commons.Remapper;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A remapper over a mappings file, with its field and method mappings flattened into single lookup tables and the
+ * results of class, descriptor and signature remapping cached. Safe to use from multiple threads.
+ */
+final class CompiledRemapper extends Remapper {
+    private final IMappingFile mappings;
+    // Keyed by "owner;name", holding only names that change
+    private final Map<String, String> fields = new HashMap<>();
+    // Keyed by "owner;name;descriptor", holding only names that change
+    private final Map<String, String> methods = new HashMap<>();
+    private final Map<String, String> classes = new ConcurrentHashMap<>();
+    private final Map<String, String> descriptors = new ConcurrentHashMap<>();
+    private final Map<String, String> methodDescriptors = new ConcurrentHashMap<>();
+    private final Map<String, String> typeSignatures = new ConcurrentHashMap<>();
+    private final Map<String, String> signatures = new ConcurrentHashMap<>();
+
+    CompiledRemapper(IMappingFile mappings) {
+        this.mappings = mappings;
+        for (var iClass : mappings.getClasses()) {
+            var owner = iClass.getOriginal();
+            classes.put(owner, iClass.getMapped());
+            for (var iField : iClass.getFields()) {
+                if (!iField.getOriginal().equals(iField.getMapped())) {
+                    fields.put(owner + ';' + iField.getOriginal(), iField.getMapped());
+                }
+            }
+            for (var iMethod : iClass.getMethods()) {
+                if (!iMethod.getOriginal().equals(iMethod.getMapped())) {
+                    methods.put(owner + ';' + iMethod.getOriginal() + ';' + iMethod.getDescriptor(), iMethod.getMapped());
+                }
+            }
+        }
+    }
+
+    @Override
+    public String map(String internalName) {
+        // Classes missing from the file still go through the mappings, which handle nested classes of mapped ones
+        return classes.computeIfAbsent(internalName, mappings::remapClass);
+    }
+
+    @Override
+    public String mapDesc(String descriptor) {
+        return descriptors.computeIfAbsent(descriptor, mappings::remapDescriptor);
+    }
+
+    @Override
+    public String mapMethodDesc(String methodDescriptor) {
+        return methodDescriptors.computeIfAbsent(methodDescriptor, super::mapMethodDesc);
+    }
+
+    @Override
+    public String mapSignature(String signature, boolean typeSignature) {
+        if (signature == null) {
+            return null;
+        }
+        if (typeSignature) {
+            return typeSignatures.computeIfAbsent(signature, s -> super.mapSignature(s, true));
+        }
+        return signatures.computeIfAbsent(signature, s -> super.mapSignature(s, false));
+    }
+
+    @Override
+    public String mapFieldName(String owner, String name, String descriptor) {
+        return fields.getOrDefault(owner + ';' + name, name);
+    }
+
+    @Override
+    public String mapMethodName(String owner, String name, String descriptor) {
+        return methods.getOrDefault(owner + ';' + name + ';' + descriptor, name);
+    }
+}
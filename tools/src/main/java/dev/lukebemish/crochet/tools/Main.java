@@ -5,11 +5,20 @@
 @CommandLine.Command(name = "tools")
 public class Main {
     public static void main(String[] args) {
-        System.exit(new CommandLine(new Main())
+        System.exit(run(args));
+    }
+
+    /**
+     * Runs a single tool invocation in this process and returns its exit code, without exiting. Each invocation gets
+     * fresh command instances and shares no mutable state with others, so a host may call this repeatedly, or from
+     * several threads at once, from a single warm classloader.
+     */
+    public static int run(String... args) {
+        return new CommandLine(new Main())
             .addSubcommand(new TransformAccessWideners())
             .addSubcommand(new TransformInterfaceInjection())
             .addSubcommand(new RemapMods())
-            .execute(args)
-        );
+            .addSubcommand(new ChainFabricMappings())
+            .execute(args);
     }
 }
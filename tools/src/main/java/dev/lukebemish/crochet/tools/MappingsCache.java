@@ -0,0 +1,234 @@
+package dev.lukebemish.crochet.tools;
+
+import net.neoforged.srgutils.IMappingBuilder;
+import net.neoforged.srgutils.IMappingFile;
+import org.jspecify.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * A content-addressed store of binary mappings. The first time a mappings file is loaded its parsed contents are written
+ * to the store, keyed by the hash of the text; later loads of the same text rebuild the mappings from the binary form
+ * without parsing any text. Only what the tools read is kept: package, class, field and method names, and member
+ * descriptors.
+ */
+final class MappingsCache {
+    private static final Logger LOGGER = Logger.getLogger(MappingsCache.class.getName());
+    private static final String SUFFIX = ".bin";
+    private static final Duration MAX_UNUSED = Duration.ofDays(14);
+    private static final int MAGIC = 0x43524d42; // CRMB
+    // Bump when the format changes
+    private static final int VERSION = 1;
+    private static final int NO_STRING = -1;
+
+    private final Path root;
+
+    MappingsCache(Path root) throws IOException {
+        this.root = root;
+        Files.createDirectories(root);
+    }
+
+    /**
+     * Loaded mappings, along with the hash of their text if it was computed, so that callers need not hash it again.
+     */
+    record Loaded(IMappingFile mappings, @Nullable String hash) {}
+
+    /**
+     * Loads the given mappings, through the store in the given directory if there is one.
+     */
+    static Loaded load(Path text, @Nullable Path cacheDir) throws IOException {
+        if (cacheDir == null) {
+            return new Loaded(IMappingFile.load(text.toFile()), null);
+        }
+        var cache = new MappingsCache(cacheDir);
+        var loaded = cache.load(text);
+        cache.clean();
+        return loaded;
+    }
+
+    Loaded load(Path text) throws IOException {
+        var key = RemapCache.hash(text);
+        var hash = HexFormat.of().parseHex(key);
+        var stored = root.resolve(key + SUFFIX);
+        if (Files.isRegularFile(stored)) {
+            try {
+                var mappings = read(stored, hash);
+                if (mappings != null) {
+                    // Touched when used, so that entries in use are not cleaned up
+                    Files.setLastModifiedTime(stored, FileTime.from(Instant.now()));
+                    return new Loaded(mappings, key);
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warning("Could not read binary mappings " + stored + ", reparsing " + text + ": " + e);
+            }
+        }
+        var mappings = IMappingFile.load(text.toFile());
+        try {
+            write(mappings, stored, hash);
+        } catch (IOException e) {
+            // The text is still usable; it will just be parsed again next time
+            LOGGER.warning("Could not write binary mappings " + stored + ": " + e);
+        }
+        return new Loaded(mappings, key);
+    }
+
+    /**
+     * Removes entries that have not been used recently, as well as any temporary files left behind by an interrupted
+     * run.
+     */
+    void clean() {
+        var cutoff = Instant.now().minus(MAX_UNUSED);
+        try (var files = Files.list(root)) {
+            files.forEach(file -> {
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.warning("Failed to clean mappings cache directory " + root + ": " + e);
+        }
+    }
+
+    private static @Nullable IMappingFile read(Path stored, byte[] expectedHash) throws IOException {
+        // Read onto the heap rather than mapped, so that no mapping keeps the file locked once loaded
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(stored));
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return null;
+        }
+        var hash = new byte[expectedHash.length];
+        buffer.get(hash);
+        if (!Arrays.equals(hash, expectedHash)) {
+            return null;
+        }
+
+        var strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            var bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        var builder = IMappingBuilder.create("left", "right");
+        int packageCount = buffer.getInt();
+        for (int i = 0; i < packageCount; i++) {
+            builder.addPackage(strings[buffer.getInt()], strings[buffer.getInt()]);
+        }
+        int classCount = buffer.getInt();
+        for (int i = 0; i < classCount; i++) {
+            var iClass = builder.addClass(strings[buffer.getInt()], strings[buffer.getInt()]);
+            int fieldCount = buffer.getInt();
+            for (int j = 0; j < fieldCount; j++) {
+                var iField = iClass.field(strings[buffer.getInt()], strings[buffer.getInt()]);
+                int descriptor = buffer.getInt();
+                if (descriptor != NO_STRING) {
+                    iField.descriptor(strings[descriptor]);
+                }
+            }
+            int methodCount = buffer.getInt();
+            for (int j = 0; j < methodCount; j++) {
+                var descriptor = strings[buffer.getInt()];
+                iClass.method(descriptor, strings[buffer.getInt()], strings[buffer.getInt()]);
+            }
+        }
+        return builder.build().getMap("left", "right");
+    }
+
+    private static void write(IMappingFile mappings, Path stored, byte[] hash) throws IOException {
+        var ids = new HashMap<String, Integer>();
+        var strings = new ArrayList<String>();
+        mappings.getPackages().forEach(iPackage -> {
+            intern(ids, strings, iPackage.getOriginal());
+            intern(ids, strings, iPackage.getMapped());
+        });
+        mappings.getClasses().forEach(iClass -> {
+            intern(ids, strings, iClass.getOriginal());
+            intern(ids, strings, iClass.getMapped());
+            iClass.getFields().forEach(iField -> {
+                intern(ids, strings, iField.getOriginal());
+                intern(ids, strings, iField.getMapped());
+                if (iField.getDescriptor() != null) {
+                    intern(ids, strings, iField.getDescriptor());
+                }
+            });
+            iClass.getMethods().forEach(iMethod -> {
+                intern(ids, strings, iMethod.getDescriptor());
+                intern(ids, strings, iMethod.getOriginal());
+                intern(ids, strings, iMethod.getMapped());
+            });
+        });
+
+        var temp = Files.createTempFile(stored.toAbsolutePath().getParent(), stored.getFileName().toString(), ".tmp");
+        try {
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.write(hash);
+                out.writeInt(strings.size());
+                for (var string : strings) {
+                    var bytes = string.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+                out.writeInt(mappings.getPackages().size());
+                for (var iPackage : mappings.getPackages()) {
+                    out.writeInt(ids.get(iPackage.getOriginal()));
+                    out.writeInt(ids.get(iPackage.getMapped()));
+                }
+                out.writeInt(mappings.getClasses().size());
+                for (var iClass : mappings.getClasses()) {
+                    out.writeInt(ids.get(iClass.getOriginal()));
+                    out.writeInt(ids.get(iClass.getMapped()));
+                    out.writeInt(iClass.getFields().size());
+                    for (var iField : iClass.getFields()) {
+                        out.writeInt(ids.get(iField.getOriginal()));
+                        out.writeInt(ids.get(iField.getMapped()));
+                        out.writeInt(iField.getDescriptor() == null ? NO_STRING : ids.get(iField.getDescriptor()));
+                    }
+                    out.writeInt(iClass.getMethods().size());
+                    for (var iMethod : iClass.getMethods()) {
+                        out.writeInt(ids.get(iMethod.getDescriptor()));
+                        out.writeInt(ids.get(iMethod.getOriginal()));
+                        out.writeInt(ids.get(iMethod.getMapped()));
+                    }
+                }
+            }
+            try {
+                Files.move(temp, stored, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, stored, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void intern(Map<String, Integer> ids, List<String> strings, String string) {
+        if (!ids.containsKey(string)) {
+            ids.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package dev.lukebemish.crochet.tools;
+
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Minimal zip reading and writing that works on raw entry data, so that entries which are not changed can be copied
+ * from one archive to another without being decompressed and recompressed. Zip64 and encrypted archives are not
+ * supported; {@link Reader} rejects them with a {@link ZipException}, and callers are expected to fall back to
+ * {@link java.util.zip}.
+ */
+final class RawZip {
+    private RawZip() {}
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR = 0x07064b50;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+    private static final int FLAG_ENCRYPTED = 1;
+    private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+    private static final int FLAG_UTF8 = 1 << 11;
+
+    // Names without the UTF-8 flag are in the zip format's original encoding, IBM code page 437
+    private static final @Nullable Charset LEGACY_NAME_CHARSET = Charset.isSupported("IBM437") ? Charset.forName("IBM437") : null;
+
+    static final int STORED = 0;
+    static final int DEFLATED = 8;
+
+    // 1980-02-01 00:00, matching gradle's constant timestamp for reproducible archives
+    static final int CONSTANT_DOS_TIME = 0;
+    static final int CONSTANT_DOS_DATE = (2 << 5) | 1;
+
+    /**
+     * @param name the entry's name, decoded according to its flags
+     * @param rawName the entry's name as stored, so that copied entries keep it byte for byte
+     */
+    record Entry(
+        String name,
+        byte[] rawName,
+        int versionMadeBy,
+        int flags,
+        int method,
+        int dosTime,
+        int dosDate,
+        int crc,
+        long compressedSize,
+        long size,
+        int internalAttributes,
+        int externalAttributes,
+        long localHeaderOffset,
+        byte[] extra,
+        byte[] comment
+    ) {
+        boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+
+    static final class Reader implements Closeable {
+        private final FileChannel channel;
+        private final List<Entry> entries;
+
+        Reader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                this.entries = readCentralDirectory();
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        List<Entry> entries() {
+            return entries;
+        }
+
+        private List<Entry> readCentralDirectory() throws IOException {
+            long fileSize = channel.size();
+            int tailSize = (int) Math.min(fileSize, END_OF_CENTRAL_DIRECTORY_SIZE + 0xFFFF);
+            var tail = read(fileSize - tailSize, tailSize);
+            int eocd = -1;
+            for (int i = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+                if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+                    eocd = i;
+                    break;
+                }
+            }
+            if (eocd == -1) {
+                throw new ZipException("No end of central directory record found");
+            }
+            if (eocd >= 20 && tail.getInt(eocd - 20) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR) {
+                throw new ZipException("Zip64 archives are not supported");
+            }
+            int entryCount = Short.toUnsignedInt(tail.getShort(eocd + 10));
+            long centralSize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+            long centralOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+            long eocdOffset = fileSize - tailSize + eocd;
+            if (centralOffset + centralSize != eocdOffset) {
+                throw new ZipException("Archives with prefixed data are not supported");
+            }
+            if (centralSize > Integer.MAX_VALUE) {
+                throw new ZipException("Central directory is too large");
+            }
+
+            var central = read(centralOffset, (int) centralSize);
+            List<Entry> entries = new ArrayList<>(entryCount);
+            int pos = 0;
+            for (int i = 0; i < entryCount; i++) {
+                if (central.getInt(pos) != CENTRAL_HEADER) {
+                    throw new ZipException("Invalid central directory header");
+                }
+                int flags = Short.toUnsignedInt(central.getShort(pos + 8));
+                if ((flags & FLAG_ENCRYPTED) != 0) {
+                    throw new ZipException("Encrypted archives are not supported");
+                }
+                int nameLength = Short.toUnsignedInt(central.getShort(pos + 28));
+                int extraLength = Short.toUnsignedInt(central.getShort(pos + 30));
+                int commentLength = Short.toUnsignedInt(central.getShort(pos + 32));
+                byte[] name = new byte[nameLength];
+                byte[] extra = new byte[extraLength];
+                byte[] comment = new byte[commentLength];
+                central.get(pos + CENTRAL_HEADER_SIZE, name);
+                central.get(pos + CENTRAL_HEADER_SIZE + nameLength, extra);
+                central.get(pos + CENTRAL_HEADER_SIZE + nameLength + extraLength, comment);
+                entries.add(new Entry(
+                    decodeName(name, flags),
+                    name,
+                    Short.toUnsignedInt(central.getShort(pos + 4)),
+                    flags,
+                    Short.toUnsignedInt(central.getShort(pos + 10)),
+                    Short.toUnsignedInt(central.getShort(pos + 12)),
+                    Short.toUnsignedInt(central.getShort(pos + 14)),
+                    central.getInt(pos + 16),
+                    Integer.toUnsignedLong(central.getInt(pos + 20)),
+                    Integer.toUnsignedLong(central.getInt(pos + 24)),
+                    Short.toUnsignedInt(central.getShort(pos + 36)),
+                    central.getInt(pos + 38),
+                    Integer.toUnsignedLong(central.getInt(pos + 42)),
+                    extra,
+                    comment
+                ));
+                pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+            }
+            return Collections.unmodifiableList(entries);
+        }
+
+        private static String decodeName(byte[] name, int flags) throws ZipException {
+            if ((flags & FLAG_UTF8) != 0) {
+                return new String(name, StandardCharsets.UTF_8);
+            }
+            if (LEGACY_NAME_CHARSET == null) {
+                throw new ZipException("Entry names without the UTF-8 flag are not supported without the IBM437 charset");
+            }
+            return new String(name, LEGACY_NAME_CHARSET);
+        }
+
+        private ByteBuffer read(long position, int length) throws IOException {
+            var buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException();
+                }
+            }
+            return buffer.flip();
+        }
+
+        private long dataOffset(Entry entry) throws IOException {
+            var header = read(entry.localHeaderOffset(), LOCAL_HEADER_SIZE);
+            if (header.getInt(0) != LOCAL_HEADER) {
+                throw new ZipException("Invalid local header for " + entry.name());
+            }
+            int nameLength = Short.toUnsignedInt(header.getShort(26));
+            int extraLength = Short.toUnsignedInt(header.getShort(28));
+            return entry.localHeaderOffset() + LOCAL_HEADER_SIZE + nameLength + extraLength;
+        }
+
+        /**
+         * {@return a stream of the uncompressed contents of an entry}
+         */
+        InputStream open(Entry entry) throws IOException {
+            var raw = new BoundedInputStream(channel, dataOffset(entry), entry.compressedSize());
+            return switch (entry.method()) {
+                case STORED -> raw;
+                case DEFLATED -> new InflaterInputStream(raw, new Inflater(true), 8192) {
+                    @Override
+                    public void close() throws IOException {
+                        super.close();
+                        inf.end();
+                    }
+                };
+                default -> throw new ZipException("Unsupported compression method " + entry.method() + " for " + entry.name());
+            };
+        }
+
+        byte[] readAllBytes(Entry entry) throws IOException {
+            try (var stream = open(entry)) {
+                return stream.readAllBytes();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+        private int entryCount;
+
+        Writer(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        /**
+         * Copies an entry from another archive as-is, without decompressing it.
+         */
+        void copy(Reader reader, Entry entry) throws IOException {
+            long dataOffset = reader.dataOffset(entry);
+            // The copied entry's sizes and CRC are known up front, so any data descriptor is dropped
+            var copied = new Entry(
+                entry.name(),
+                entry.rawName(),
+                entry.versionMadeBy(),
+                entry.flags() & ~FLAG_DATA_DESCRIPTOR,
+                entry.method(),
+                entry.dosTime(),
+                entry.dosDate(),
+                entry.crc(),
+                entry.compressedSize(),
+                entry.size(),
+                entry.internalAttributes(),
+                entry.externalAttributes(),
+                channel.position(),
+                entry.extra(),
+                entry.comment()
+            );
+            writeLocalHeader(copied);
+            long transferred = 0;
+            while (transferred < entry.compressedSize()) {
+                long count = reader.channel.transferTo(dataOffset + transferred, entry.compressedSize() - transferred, channel);
+                if (count <= 0) {
+                    throw new EOFException("Unexpected end of data for " + entry.name());
+                }
+                transferred += count;
+            }
+            addCentralHeader(copied);
+        }
+
+        interface Content {
+            void writeTo(OutputStream output) throws IOException;
+        }
+
+        /**
+         * Writes a new, deflated entry.
+         */
+        void write(String name, int dosTime, int dosDate, byte[] data) throws IOException {
+            write(name, dosTime, dosDate, output -> output.write(data));
+        }
+
+        /**
+         * Writes a new, deflated entry as it is streamed, without holding it in memory. The local header is written
+         * first and patched with the CRC and sizes once the contents are known.
+         */
+        void write(String name, int dosTime, int dosDate, Content content) throws IOException {
+            long headerOffset = channel.position();
+            writeLocalHeader(newEntry(name, dosTime, dosDate, 0, 0, 0, headerOffset));
+            long dataOffset = channel.position();
+
+            var crc = new CRC32();
+            long[] size = new long[1];
+            var deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                var channelStream = new OutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        write(new byte[] {(byte) b}, 0, 1);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        writeFully(ByteBuffer.wrap(b, off, len));
+                    }
+                };
+                var deflating = new DeflaterOutputStream(channelStream, deflater, 8192);
+                content.writeTo(new OutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        crc.update(b);
+                        size[0]++;
+                        deflating.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        crc.update(b, off, len);
+                        size[0] += len;
+                        deflating.write(b, off, len);
+                    }
+                });
+                deflating.finish();
+            } finally {
+                deflater.end();
+            }
+
+            var entry = newEntry(name, dosTime, dosDate, (int) crc.getValue(), channel.position() - dataOffset, size[0], headerOffset);
+            checkLimits(entry);
+            var patch = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+            patch.putInt(entry.crc());
+            patch.putInt((int) entry.compressedSize());
+            patch.putInt((int) entry.size());
+            patch.flip();
+            long patchOffset = headerOffset + 14;
+            while (patch.hasRemaining()) {
+                patchOffset += channel.write(patch, patchOffset);
+            }
+            addCentralHeader(entry);
+        }
+
+        private static Entry newEntry(String name, int dosTime, int dosDate, int crc, long compressedSize, long size, long offset) {
+            return new Entry(name, name.getBytes(StandardCharsets.UTF_8), 20, FLAG_UTF8, DEFLATED, dosTime, dosDate, crc, compressedSize, size, 0, 0, offset, new byte[0], new byte[0]);
+        }
+
+        private void writeLocalHeader(Entry entry) throws IOException {
+            checkLimits(entry);
+            byte[] name = entry.rawName();
+            var buffer = ByteBuffer.allocate(LOCAL_HEADER_SIZE + name.length).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(LOCAL_HEADER);
+            buffer.putShort((short) 20);
+            buffer.putShort((short) entry.flags());
+            buffer.putShort((short) entry.method());
+            buffer.putShort((short) entry.dosTime());
+            buffer.putShort((short) entry.dosDate());
+            buffer.putInt(entry.crc());
+            buffer.putInt((int) entry.compressedSize());
+            buffer.putInt((int) entry.size());
+            buffer.putShort((short) name.length);
+            buffer.putShort((short) 0);
+            buffer.put(name);
+            writeFully(buffer.flip());
+        }
+
+        private void addCentralHeader(Entry entry) {
+            byte[] name = entry.rawName();
+            var buffer = ByteBuffer.allocate(CENTRAL_HEADER_SIZE + name.length + entry.extra().length + entry.comment().length).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(CENTRAL_HEADER);
+            buffer.putShort((short) entry.versionMadeBy());
+            buffer.putShort((short) 20);
+            buffer.putShort((short) entry.flags());
+            buffer.putShort((short) entry.method());
+            buffer.putShort((short) entry.dosTime());
+            buffer.putShort((short) entry.dosDate());
+            buffer.putInt(entry.crc());
+            buffer.putInt((int) entry.compressedSize());
+            buffer.putInt((int) entry.size());
+            buffer.putShort((short) name.length);
+            buffer.putShort((short) entry.extra().length);
+            buffer.putShort((short) entry.comment().length);
+            buffer.putShort((short) 0);
+            buffer.putShort((short) entry.internalAttributes());
+            buffer.putInt(entry.externalAttributes());
+            buffer.putInt((int) entry.localHeaderOffset());
+            buffer.put(name);
+            buffer.put(entry.extra());
+            buffer.put(entry.comment());
+            centralDirectory.writeBytes(buffer.array());
+            entryCount++;
+        }
+
+        private void checkLimits(Entry entry) throws ZipException {
+            if (entry.localHeaderOffset() > 0xFFFFFFFFL || entry.compressedSize() > 0xFFFFFFFFL || entry.size() > 0xFFFFFFFFL || entryCount >= 0xFFFF) {
+                throw new ZipException("Output would require zip64, which is not supported");
+            }
+        }
+
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (channel) {
+                long centralOffset = channel.position();
+                byte[] central = centralDirectory.toByteArray();
+                if (centralOffset > 0xFFFFFFFFL) {
+                    throw new ZipException("Output would require zip64, which is not supported");
+                }
+                writeFully(ByteBuffer.wrap(central));
+                var buffer = ByteBuffer.allocate(END_OF_CENTRAL_DIRECTORY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(END_OF_CENTRAL_DIRECTORY);
+                buffer.putShort((short) 0);
+                buffer.putShort((short) 0);
+                buffer.putShort((short) entryCount);
+                buffer.putShort((short) entryCount);
+                buffer.putInt(central.length);
+                buffer.putInt((int) centralOffset);
+                buffer.putShort((short) 0);
+                writeFully(buffer.flip());
+            }
+        }
+    }
+
+    private static final class BoundedInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private long remaining;
+
+        BoundedInputStream(FileChannel channel, long position, long length) {
+            this.channel = channel;
+            this.position = position;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int count = read(single, 0, 1);
+            return count <= 0 ? -1 : Byte.toUnsignedInt(single[0]);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            // Positional reads leave the channel's own position alone, so entries may be read concurrently
+            int count = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+            if (count < 0) {
+                throw new EOFException();
+            }
+            position += count;
+            remaining -= count;
+            return count;
+        }
+    }
+}
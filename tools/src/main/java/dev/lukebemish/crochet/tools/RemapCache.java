@@ -0,0 +1,454 @@
+package dev.lukebemish.crochet.tools;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.Remapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A content-addressed store of remapped jars. Entries are keyed by the hash of the source jar along with everything
+ * else that can influence its remapped output -- the mappings, the tool options, and the API of the classes it can
+ * reach on the remapping classpath -- so that a single jar may be reused across runs, and across differing classpaths,
+ * even if other remapped jars change. Classpath jars are indexed once by content, so that later runs need not re-read
+ * their code.
+ */
+final class RemapCache {
+    // Bump whenever the output of remap-mods for a given input changes
+    private static final String VERSION = "2";
+    private static final Duration MAX_UNUSED = Duration.ofDays(14);
+    private static final Logger LOGGER = Logger.getLogger(RemapCache.class.getName());
+    private static final Pattern DESCRIPTOR_CLASS = Pattern.compile("L([^;<>\\[\\]]+);");
+    private static final Pattern CLASS_NAME = Pattern.compile("[\\w$]+(?:[./][\\w$]+)+");
+
+    private final Path outputs;
+    private final Path indexes;
+
+    RemapCache(Path root) throws IOException {
+        this.outputs = root.resolve("outputs");
+        this.indexes = root.resolve("index");
+        Files.createDirectories(outputs);
+        Files.createDirectories(indexes);
+    }
+
+    static final class Key {
+        private final MessageDigest digest = sha256();
+
+        Key() {
+            put(VERSION);
+        }
+
+        Key put(String value) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return this;
+        }
+
+        String build() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+    }
+
+    static String hash(Path file) throws IOException {
+        var digest = sha256();
+        try (var stream = Files.newInputStream(file)) {
+            var buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * The declaration of a class on the classpath: its supertypes, and a hash of its non-private class and member
+     * declarations. Remapping of a jar can only depend on the declarations of classes it can reach, so this is a
+     * sufficient stand-in for those classes when keying remapped outputs.
+     */
+    record ClassInfo(String superName, List<String> interfaces, String apiHash) {}
+
+    /**
+     * An index of a classpath jar: the declarations of its classes, and a skeleton jar holding only the class headers
+     * and member declarations, without code or resources, which may be read in place of the jar itself to build the
+     * class hierarchy. Directories are indexed in memory, and serve as their own skeleton.
+     */
+    record Index(Path source, String contentHash, Path skeleton, Map<String, ClassInfo> classes) {}
+
+    /**
+     * {@return the index of a classpath jar} Indexes are stored by the hash of the jar's contents, and created if
+     * missing.
+     */
+    Index index(Path jar) throws IOException {
+        if (Files.isDirectory(jar)) {
+            var classes = new HashMap<String, ClassInfo>();
+            forEachClass(jar, (name, bytes) -> indexClass(name, bytes, null, classes));
+            return new Index(jar, null, jar, classes);
+        }
+        var contentHash = hash(jar);
+        var classesFile = indexes.resolve(contentHash + ".classes");
+        var skeleton = indexes.resolve(contentHash + ".jar");
+        if (Files.isRegularFile(classesFile) && Files.isRegularFile(skeleton)) {
+            try {
+                var classes = readClasses(classesFile);
+                touch(classesFile);
+                touch(skeleton);
+                return new Index(jar, contentHash, skeleton, classes);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warning("Could not read cached index for " + jar + ": " + e);
+            }
+        }
+        var tempSkeleton = Files.createTempFile(indexes, contentHash, ".tmp");
+        var tempClasses = Files.createTempFile(indexes, contentHash, ".tmp");
+        try {
+            var classes = new TreeMap<String, ClassInfo>();
+            try (var out = new ZipOutputStream(Files.newOutputStream(tempSkeleton))) {
+                forEachClass(jar, (name, bytes) -> {
+                    var stripped = indexClass(name, bytes, new ClassWriter(0), classes);
+                    var outEntry = new ZipEntry(name);
+                    outEntry.setTime(0);
+                    out.putNextEntry(outEntry);
+                    out.write(stripped);
+                    out.closeEntry();
+                });
+            }
+            writeClasses(tempClasses, classes);
+            // The skeleton goes first, as the class listing marks the index as complete
+            move(tempSkeleton, skeleton);
+            move(tempClasses, classesFile);
+            return new Index(jar, contentHash, skeleton, classes);
+        } finally {
+            Files.deleteIfExists(tempSkeleton);
+            Files.deleteIfExists(tempClasses);
+        }
+    }
+
+    /**
+     * {@return the names of classes referenced by the classes in an indexed jar} Real references are prefixed with
+     * {@code !}. Besides those, this includes any string constant that could name a class, such as mixin targets; such
+     * names only count if they exist on the classpath.
+     */
+    Set<String> references(Index index) throws IOException {
+        Path refsFile = index.contentHash() == null ? null : indexes.resolve(index.contentHash() + ".refs");
+        if (refsFile != null && Files.isRegularFile(refsFile)) {
+            try {
+                var refs = new HashSet<>(Files.readAllLines(refsFile, StandardCharsets.UTF_8));
+                touch(refsFile);
+                return refs;
+            } catch (IOException e) {
+                LOGGER.warning("Could not read cached references for " + index.source() + ": " + e);
+            }
+        }
+        var refs = new TreeSet<String>();
+        var recorder = new Remapper() {
+            @Override
+            public String map(String internalName) {
+                refs.add("!" + internalName);
+                return internalName;
+            }
+
+            @Override
+            public Object mapValue(Object value) {
+                if (value instanceof String string) {
+                    if (CLASS_NAME.matcher(string).matches()) {
+                        refs.add(string.replace('.', '/'));
+                    }
+                    var matcher = DESCRIPTOR_CLASS.matcher(string);
+                    while (matcher.find()) {
+                        refs.add(matcher.group(1));
+                    }
+                }
+                return super.mapValue(value);
+            }
+        };
+        forEachClass(index.source(), (name, bytes) -> {
+            try {
+                // Members are only remapped if the delegate visits them, so a writer is needed to see everything
+                new ClassReader(bytes).accept(new ClassRemapper(new ClassWriter(0), recorder), 0);
+            } catch (RuntimeException e) {
+                // Not a class ASM can read
+            }
+        });
+        if (refsFile != null) {
+            var temp = Files.createTempFile(indexes, index.contentHash(), ".tmp");
+            try {
+                Files.write(temp, refs, StandardCharsets.UTF_8);
+                move(temp, refsFile);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return refs;
+    }
+
+    /**
+     * Adds to a key the API of every class reachable from the given references through the classpath's type hierarchy.
+     * Classes which are referenced but missing are recorded as such, so that their later appearance changes the key.
+     */
+    static void putReachableApi(Key key, Set<String> references, Map<String, ClassInfo> classpath) {
+        var reached = new TreeMap<String, ClassInfo>();
+        var missing = new TreeSet<String>();
+        var queue = new ArrayDeque<String>();
+        for (var reference : references) {
+            var definite = reference.startsWith("!");
+            var name = definite ? reference.substring(1) : reference;
+            if (classpath.containsKey(name)) {
+                queue.add(name);
+            } else if (definite) {
+                missing.add(name);
+            }
+        }
+        while (!queue.isEmpty()) {
+            var name = queue.poll();
+            if (reached.containsKey(name) || missing.contains(name)) {
+                continue;
+            }
+            var info = classpath.get(name);
+            if (info == null) {
+                missing.add(name);
+                continue;
+            }
+            reached.put(name, info);
+            if (info.superName() != null) {
+                queue.add(info.superName());
+            }
+            queue.addAll(info.interfaces());
+        }
+        for (var entry : reached.entrySet()) {
+            key.put(entry.getKey()).put(entry.getValue().apiHash());
+        }
+        for (var name : missing) {
+            key.put(name).put("");
+        }
+    }
+
+    private interface ClassConsumer {
+        void accept(String name, byte[] bytes) throws IOException;
+    }
+
+    private static void forEachClass(Path jarOrDir, ClassConsumer consumer) throws IOException {
+        if (Files.isDirectory(jarOrDir)) {
+            List<Path> files;
+            try (var stream = Files.walk(jarOrDir)) {
+                files = stream.filter(p -> Files.isRegularFile(p) && p.getFileName().toString().endsWith(".class")).sorted().toList();
+            }
+            for (var file : files) {
+                consumer.accept(jarOrDir.relativize(file).toString().replace('\\', '/'), Files.readAllBytes(file));
+            }
+            return;
+        }
+        try (var zip = new ZipFile(jarOrDir.toFile())) {
+            List<ZipEntry> entries = new ArrayList<>();
+            zip.stream().filter(e -> !e.isDirectory() && e.getName().endsWith(".class")).forEach(entries::add);
+            entries.sort(Comparator.comparing(ZipEntry::getName));
+            for (var entry : entries) {
+                byte[] bytes;
+                try (InputStream stream = zip.getInputStream(entry)) {
+                    bytes = stream.readAllBytes();
+                }
+                consumer.accept(entry.getName(), bytes);
+            }
+        }
+    }
+
+    private static byte[] indexClass(String entryName, byte[] bytes, ClassWriter writer, Map<String, ClassInfo> classes) {
+        var digest = sha256();
+        var hasher = new ApiHasher(digest, writer);
+        try {
+            new ClassReader(bytes).accept(hasher, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        } catch (RuntimeException e) {
+            // Not a class ASM can read; keep it as-is but do not index it
+            return bytes;
+        }
+        // Multi-release variants do not change the declarations tiny-remapper sees
+        if (hasher.name != null && !entryName.startsWith("META-INF/versions/")) {
+            classes.putIfAbsent(hasher.name, new ClassInfo(hasher.superName, hasher.interfaces, HexFormat.of().formatHex(digest.digest())));
+        }
+        return writer == null ? bytes : writer.toByteArray();
+    }
+
+    private static Map<String, ClassInfo> readClasses(Path file) throws IOException {
+        var classes = new HashMap<String, ClassInfo>();
+        for (var line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            var parts = line.split("\t", -1);
+            var interfaces = parts[2].isEmpty() ? List.<String>of() : Arrays.asList(parts[2].split(","));
+            classes.put(parts[0], new ClassInfo(parts[1].isEmpty() ? null : parts[1], interfaces, parts[3]));
+        }
+        return classes;
+    }
+
+    private static void writeClasses(Path file, Map<String, ClassInfo> classes) throws IOException {
+        List<String> lines = new ArrayList<>(classes.size());
+        classes.forEach((name, info) -> lines.add(name + "\t" + (info.superName() == null ? "" : info.superName()) + "\t" + String.join(",", info.interfaces()) + "\t" + info.apiHash()));
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * {@return the cached output for the given key, or {@code null} if there is none} Cached outputs are touched when
+     * found, so that entries in use are not cleaned up.
+     */
+    Path find(String key) {
+        var path = outputs.resolve(key + ".jar");
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            touch(path);
+        } catch (IOException e) {
+            // The entry was likely removed out from under us
+            return null;
+        }
+        return path;
+    }
+
+    void store(String key, Path output) throws IOException {
+        var temp = Files.createTempFile(outputs, key, ".tmp");
+        try {
+            Files.copy(output, temp, StandardCopyOption.REPLACE_EXISTING);
+            move(temp, outputs.resolve(key + ".jar"));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Removes entries that have not been used recently, as well as any temporary files left behind by an interrupted
+     * run.
+     */
+    void clean() {
+        var cutoff = Instant.now().minus(MAX_UNUSED);
+        for (var dir : List.of(outputs, indexes)) {
+            try (var files = Files.list(dir)) {
+                files.forEach(file -> {
+                    try {
+                        if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                            Files.deleteIfExists(file);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (IOException | UncheckedIOException e) {
+                LOGGER.warning("Failed to clean remap cache directory " + dir + ": " + e);
+            }
+        }
+    }
+
+    private static void touch(Path file) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (FileAlreadyExistsException e) {
+            // Another process stored the same entry concurrently; contents are identical
+            Files.deleteIfExists(from);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class ApiHasher extends ClassVisitor {
+        private final MessageDigest digest;
+        private String name;
+        private String superName;
+        private List<String> interfaces = List.of();
+
+        ApiHasher(MessageDigest digest, ClassVisitor delegate) {
+            super(Opcodes.ASM9, delegate);
+            this.digest = digest;
+        }
+
+        private void put(String value) {
+            if (value != null) {
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+        }
+
+        private void put(int value) {
+            put(Integer.toString(value));
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.name = name;
+            this.superName = superName;
+            this.interfaces = interfaces == null ? List.of() : List.of(interfaces);
+            put("class");
+            put(access);
+            put(name);
+            put(superName);
+            for (var itf : this.interfaces) {
+                put(itf);
+            }
+            super.visit(version, access, name, signature, superName, interfaces);
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            if ((access & Opcodes.ACC_PRIVATE) == 0) {
+                put("field");
+                put(access);
+                put(name);
+                put(descriptor);
+            }
+            return super.visitField(access, name, descriptor, signature, value);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            if ((access & Opcodes.ACC_PRIVATE) == 0) {
+                put("method");
+                put(access);
+                put(name);
+                put(descriptor);
+            }
+            return super.visitMethod(access, name, descriptor, signature, exceptions);
+        }
+    }
+}
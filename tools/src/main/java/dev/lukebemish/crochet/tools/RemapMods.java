@@ -1,6 +1,7 @@
 package dev.lukebemish.crochet.tools;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import dev.lukebemish.taskgraphrunner.signatures.TypeSignature;
 import net.fabricmc.accesswidener.AccessWidenerReader;
@@ -13,14 +14,16 @@
 import net.fabricmc.tinyremapper.TinyRemapper;
 import net.fabricmc.tinyremapper.extension.mixin.MixinExtension;
 import net.neoforged.srgutils.IMappingFile;
+import org.jspecify.annotations.Nullable;
 import org.objectweb.asm.commons.Remapper;
 import picocli.CommandLine;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -29,14 +32,22 @@
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
 import java.util.logging.Logger;
+import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
 @CommandLine.Command(name = "remap-mods", mixinStandardHelpOptions = true, description = "Remap mods.")
@@ -72,6 +83,15 @@ static class Target {
     @CommandLine.Option(names = "--to-ns", description = "Namespace to remap to.", required = true)
     String toNs;
 
+    @CommandLine.Option(names = "--threads", description = "Number of threads to remap with. Defaults to the number of available processors.")
+    int threads = Runtime.getRuntime().availableProcessors();
+
+    @CommandLine.Option(names = "--cache-dir", description = "Directory to cache remapped jars in, keyed by their contents.")
+    Path cacheDir;
+
+    @CommandLine.Option(names = "--mappings-cache-dir", description = "Directory to cache parsed mappings in, keyed by their contents.")
+    Path mappingsCacheDir;
+
     static final class ClasspathConverter implements CommandLine.ITypeConverter<List<Path>> {
         @Override
         public List<Path> convert(String value) {
@@ -81,8 +101,8 @@ public List<Path> convert(String value) {
 
     private static final Logger LOGGER = Logger.getLogger(RemapMods.class.getName());
 
-    static Map<String, AWData> readAccessWideners(Path jar) throws IOException {
-        var out = new HashMap<String, AWData>();
+    static Map<String, AccessWidenerReader.Header> readAccessWideners(Path jar) throws IOException {
+        var out = new HashMap<String, AccessWidenerReader.Header>();
         try (var zip = new ZipFile(jar.toFile())) {
             var fmj = zip.getEntry("fabric.mod.json");
             if (fmj != null) {
@@ -92,10 +112,9 @@ static Map<String, AWData> readAccessWideners(Path jar) throws IOException {
                     if (aw != null) {
                         var awEntry = zip.getEntry(aw.getAsString());
                         if (awEntry != null) {
-                            try (var stream = zip.getInputStream(awEntry)) {
-                                var content = stream.readAllBytes();
-                                var header = AccessWidenerReader.readHeader(content);
-                                out.put(aw.getAsString(), new AWData(header, content));
+                            // Only the header is needed up front; the rest is read while the jar is written
+                            try (var reader = AccessWideners.reader(zip.getInputStream(awEntry))) {
+                                out.put(aw.getAsString(), AccessWidenerReader.readHeader(reader));
                             }
                         }
                     }
@@ -108,33 +127,26 @@ static Map<String, AWData> readAccessWideners(Path jar) throws IOException {
         return out;
     }
 
-    record AWData(AccessWidenerReader.Header header, byte[] content) {}
-
-    byte[] remapAccessWidener(byte[] input, IMappingFile mappings) {
-        var header = AccessWidenerReader.readHeader(input);
-        if (!header.getNamespace().equals(fromNs)) {
-            return input;
-        }
-
-        int version = AccessWidenerReader.readVersion(input);
-
-        AccessWidenerWriter writer = new AccessWidenerWriter(version);
+    void remapAccessWidener(AccessWidenerReader.Header header, InputStream input, OutputStream output, Remapper remapper) throws IOException {
+        AccessWidenerWriter writer = new AccessWidenerWriter(header.getVersion());
         AccessWidenerRemapper awRemapper = new AccessWidenerRemapper(
             writer,
-            Utils.remapperForFile(mappings),
+            remapper,
             fromNs,
             toNs
         );
-        AccessWidenerReader reader = new AccessWidenerReader(awRemapper);
-        reader.read(input);
-        return writer.write();
+        AccessWideners.read(AccessWideners.reader(input), awRemapper);
+        output.write(writer.write());
     }
 
     @Override
     public void run() {
         try {
-            IMappingFile mappings = IMappingFile.load(this.mappingsFile.toFile());
+            var loadedMappings = MappingsCache.load(this.mappingsFile, mappingsCacheDir);
+            IMappingFile mappings = loadedMappings.mappings();
             IMappingProvider mappingProvider = mappingProvider(mappings);
+            // Shared by every emitted jar, so that lookups cached for one jar's access widener are reused by the next
+            var mappingsRemapper = new CompiledRemapper(mappings);
 
             List<ModData> modData = new ArrayList<>();
             List<Target> remapTargets = new ArrayList<>();
@@ -149,13 +161,67 @@ public void run() {
                 }
             }
 
-            Set<String> knownIndyBsm = new HashSet<>();
+            // Known bootstrap methods apply to every target remapped together, so they affect each target's output; they are
+            // taken from all targets, cached or not, so that a cached jar is only reused alongside the same set
+            Set<String> knownIndyBsm = new TreeSet<>();
             for (var data : modData) {
                 knownIndyBsm.addAll(data.knownIndyBsms);
             }
 
+            RemapCache cache = cacheDir == null ? null : new RemapCache(cacheDir);
+            List<String> cacheKeys = new ArrayList<>();
+            Set<Path> cachedSources = new LinkedHashSet<>();
+            Map<Path, RemapCache.Index> indexes = new HashMap<>();
+            if (cache != null && !remapTargets.isEmpty()) {
+                // Every target is visible to every other target while remapping, so they count as part of the classpath
+                var classpath = new LinkedHashSet<>(remappingClasspath);
+                for (var target : remapTargets) {
+                    classpath.add(target.source);
+                }
+                Map<String, RemapCache.ClassInfo> classes = new HashMap<>();
+                for (var path : classpath) {
+                    var index = cache.index(path);
+                    indexes.put(path, index);
+                    index.classes().forEach(classes::putIfAbsent);
+                }
+                var sharedKey = sharedCacheKey(knownIndyBsm, loadedMappings.hash());
+                List<ModData> missedData = new ArrayList<>();
+                List<Target> missedTargets = new ArrayList<>();
+                for (int i = 0; i < remapTargets.size(); i++) {
+                    var target = remapTargets.get(i);
+                    var index = indexes.get(target.source);
+                    // Only the classes a target can reach affect its output, so the key does not depend on the rest of
+                    // the classpath; this lets the same jar be shared between differing classpaths.
+                    var keyBuilder = new RemapCache.Key().put(sharedKey).put(index.contentHash());
+                    RemapCache.putReachableApi(keyBuilder, cache.references(index), classes);
+                    var key = keyBuilder.build();
+                    var cached = cache.find(key);
+                    if (cached != null) {
+                        Files.createDirectories(target.target.getParent());
+                        Files.copy(cached, target.target, StandardCopyOption.REPLACE_EXISTING);
+                        cachedSources.add(target.source);
+                    } else {
+                        missedData.add(modData.get(i));
+                        missedTargets.add(target);
+                        cacheKeys.add(key);
+                    }
+                }
+                LOGGER.info("Reused " + cachedSources.size() + " of " + remapTargets.size() + " remapped jars from cache");
+                modData = missedData;
+                remapTargets = missedTargets;
+            }
+
+            if (remapTargets.isEmpty()) {
+                if (cache != null) {
+                    cache.clean();
+                }
+                return;
+            }
+
+
             var builder = TinyRemapper.newRemapper()
                 .withMappings(mappingProvider)
+                .threads(threads)
                 .renameInvalidLocals(false)
                 .withKnownIndyBsm(knownIndyBsm);
 
@@ -171,107 +237,88 @@ public void run() {
             }
 
             var tinyRemapper = builder.build();
-            // Note: this requires classpathScopedJvm = true if ran as a daemon-executed tool due to NIO filesystem silliness
-            tinyRemapper.readClassPathAsync(remappingClasspath.stream().filter(p -> !toRemapSet.contains(p)).toArray(Path[]::new));
-
-            InputTag[] tags = new InputTag[remapTargets.size()];
-            for (int i = 0; i < remapTargets.size(); i++) {
-                var target = remapTargets.get(i);
-                tags[i] = tinyRemapper.createInputTag();
-                tinyRemapper.readInputsAsync(tags[i], target.source);
-                if (modData.get(i).mixinRemapType == ModData.MixinRemapType.STATIC) {
-                    remapMixins.add(tags[i]);
-                } else {
-                    // TODO: old fashioned mixin remapping
-                }
-            }
-
-            List<OutputConsumerPath> paths = new ArrayList<>();
+            List<OutputConsumerPath> paths = Collections.synchronizedList(new ArrayList<>());
             List<IOException> exceptions = new ArrayList<>();
 
-            JsonObject interfaceInjections;
-            if (this.interfaceInjections.isEmpty()) {
-                interfaceInjections = null;
-            } else {
-                interfaceInjections = new JsonObject();
-                for (var path : this.interfaceInjections) {
-                    var json = Utils.GSON.fromJson(Files.newBufferedReader(path), JsonObject.class);
-                    json.entrySet().forEach(e -> {
-                        Remapper remapper = tinyRemapper.getEnvironment().getRemapper();
-                        var key = remapper.map(e.getKey());
-                        var value = e.getValue().getAsJsonArray();
-                        var existing = interfaceInjections.getAsJsonArray(key);
-                        if (existing == null) {
-                            existing = new JsonArray();
-                            interfaceInjections.add(key, existing);
-                        }
-                        for (var v : value) {
-                            var binary = TypeSignature.fromNeo(v.getAsString(), it -> tinyRemapper.getEnvironment().getClass(it) != null).binary();
-                            binary = remapper.mapSignature(binary, true);
-                            existing.add(binary.substring(1, binary.length() - 1));
-                        }
-                    });
-                }
-            }
-
+            // Note: this used to require classpathScopedJvm = true if ran as a daemon-executed tool due to NIO filesystem
+            // silliness, as the zip filesystems opened on inputs and outputs outlived the run in a reused classloader.
+            // Whatever happens, the remapper is now finished and outputs closed, so the flag is no longer needed
             try {
+                // Jars served from the cache are still needed on the classpath for the jars that are being remapped
+                var classpath = new LinkedHashSet<>(remappingClasspath);
+                classpath.addAll(cachedSources);
+                // Where available, read the indexed skeletons of classpath jars rather than the jars themselves
+                tinyRemapper.readClassPathAsync(classpath.stream().filter(p -> !toRemapSet.contains(p)).map(p -> {
+                    var index = indexes.get(p);
+                    return index == null ? p : index.skeleton();
+                }).toArray(Path[]::new));
+
+                InputTag[] tags = new InputTag[remapTargets.size()];
                 for (int i = 0; i < remapTargets.size(); i++) {
                     var target = remapTargets.get(i);
+                    tags[i] = tinyRemapper.createInputTag();
+                    tinyRemapper.readInputsAsync(tags[i], target.source);
+                    if (modData.get(i).mixinRemapType == ModData.MixinRemapType.STATIC) {
+                        remapMixins.add(tags[i]);
+                    } else {
+                        // TODO: old fashioned mixin remapping
+                    }
+                }
 
-                    var transforms = ZipTransforms.create();
-                    transforms.withJson(Map.of("fabric.mod.json", json -> {
-                        if (stripNestedJars) {
-                            json.remove("jars");
+                JsonObject interfaceInjections;
+                if (this.interfaceInjections.isEmpty()) {
+                    interfaceInjections = null;
+                } else {
+                    interfaceInjections = new JsonObject();
+                    for (var path : this.interfaceInjections) {
+                        JsonObject json;
+                        try (var reader = Files.newBufferedReader(path)) {
+                            json = Utils.GSON.fromJson(reader, JsonObject.class);
                         }
-                        if (interfaceInjections != null && !interfaceInjections.isEmpty()) {
-                            var custom = json.get("custom");
-                            if (custom == null) {
-                                custom = new JsonObject();
-                                json.add("custom", custom);
+                        json.entrySet().forEach(e -> {
+                            Remapper remapper = tinyRemapper.getEnvironment().getRemapper();
+                            var key = remapper.map(e.getKey());
+                            var value = e.getValue().getAsJsonArray();
+                            var existing = interfaceInjections.getAsJsonArray(key);
+                            if (existing == null) {
+                                existing = new JsonArray();
+                                interfaceInjections.add(key, existing);
+                            }
+                            for (var v : value) {
+                                var binary = TypeSignature.fromNeo(v.getAsString(), it -> tinyRemapper.getEnvironment().getClass(it) != null).binary();
+                                binary = remapper.mapSignature(binary, true);
+                                existing.add(binary.substring(1, binary.length() - 1));
                             }
-                            custom.getAsJsonObject().add("loom:injected_interfaces", interfaceInjections);
-                        }
-                        return json;
-                    }));
-                    var accessWideners = readAccessWideners(target.source);
-                    var awTransforms = new HashMap<String, ZipTransforms.IoUnaryOperator<byte[]>>();
-                    for (var entry : accessWideners.entrySet()) {
-                        var data = entry.getValue();
-                        var remapped = remapAccessWidener(data.content, mappings);
-                        if (remapped != data.content) {
-                            awTransforms.put(entry.getKey(), bytes -> remapped);
-                        }
-                    }
-                    transforms.with(awTransforms);
-                    transforms.with(Map.of("META-INF/MANIFEST.MF", bytes -> {
-                        var manifest = new Manifest(new ByteArrayInputStream(bytes));
-
-                        Attributes mainAttrs = manifest.getMainAttributes();
-
-                        mainAttrs.putValue("Fabric-Mapping-Namespace", toNs);
-
-                        // Fix all the stuff tiny-remapper would normally do
-                        mainAttrs.remove(Attributes.Name.SIGNATURE_VERSION);
-                        manifest.getEntries().values().forEach(it -> {
-                            it.entrySet().removeIf(e -> {
-                                var name = e.getKey().toString();
-                                return name.endsWith("-Digest") || name.contains("-Digest-") || name.equals("Magic");
-                            });
                         });
-                        manifest.getEntries().values().removeIf(Attributes::isEmpty);
-
-                        ByteArrayOutputStream out = new ByteArrayOutputStream();
-                        manifest.write(out);
-                        return out.toByteArray();
-                    }));
+                    }
+                }
 
-                    var path = new OutputConsumerPath.Builder(target.target).assumeArchive(true).build();
-                    paths.add(path);
-                    path.addNonClassFiles(target.source, tinyRemapper, List.of(transforms, MetaInfFixer.INSTANCE));
-                    tinyRemapper.apply(path, tags[i]);
+                // Emission of each target is independent; tiny-remapper itself synchronizes what needs synchronizing
+                try (var executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, remapTargets.size())))) {
+                    List<Future<?>> futures = new ArrayList<>();
+                    for (int i = 0; i < remapTargets.size(); i++) {
+                        var target = remapTargets.get(i);
+                        var tag = tags[i];
+                        futures.add(executor.submit(() -> {
+                            emit(target, tag, tinyRemapper, mappingsRemapper, interfaceInjections, paths);
+                            return null;
+                        }));
+                    }
+                    for (int i = 0; i < futures.size(); i++) {
+                        try {
+                            futures.get(i).get();
+                        } catch (ExecutionException e) {
+                            if (e.getCause() instanceof IOException ioException) {
+                                exceptions.add(ioException);
+                            } else {
+                                exceptions.add(new IOException("Failed to remap " + remapTargets.get(i).source, e.getCause()));
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    exceptions.add(new InterruptedIOException("Interrupted while remapping mods"));
                 }
-            } catch (IOException e) {
-                exceptions.add(e);
             } finally {
                 tinyRemapper.finish();
                 for (OutputConsumerPath path : paths) {
@@ -290,11 +337,165 @@ public void run() {
                 }
                 throw e;
             }
+
+            if (cache != null) {
+                for (int i = 0; i < remapTargets.size(); i++) {
+                    cache.store(cacheKeys.get(i), remapTargets.get(i).target);
+                }
+                cache.clean();
+            }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
+    private void emit(Target target, InputTag tag, TinyRemapper tinyRemapper, Remapper mappingsRemapper, JsonObject interfaceInjections, List<OutputConsumerPath> paths) throws IOException {
+        var transforms = ZipTransforms.create();
+        Map<String, ZipTransforms.IoUnaryOperator<JsonElement>> fmjEdits = new HashMap<>();
+        if (stripNestedJars) {
+            fmjEdits.put("jars", jars -> null);
+        }
+        if (interfaceInjections != null && !interfaceInjections.isEmpty()) {
+            fmjEdits.put("custom", custom -> {
+                if (custom == null) {
+                    custom = new JsonObject();
+                }
+                custom.getAsJsonObject().add("loom:injected_interfaces", interfaceInjections);
+                return custom;
+            });
+        }
+        if (!fmjEdits.isEmpty()) {
+            transforms.withJsonMembers(Map.of("fabric.mod.json", fmjEdits));
+        }
+        var accessWideners = readAccessWideners(target.source);
+        var awTransforms = new HashMap<String, ZipTransforms.StreamTransform>();
+        for (var entry : accessWideners.entrySet()) {
+            var header = entry.getValue();
+            // Access wideners in other namespaces are left untouched
+            if (header.getNamespace().equals(fromNs)) {
+                awTransforms.put(entry.getKey(), (input, output) -> remapAccessWidener(header, input, output, mappingsRemapper));
+            }
+        }
+        transforms.withStreaming(awTransforms);
+        transforms.withStreaming(Map.of("META-INF/MANIFEST.MF", (input, output) -> {
+            var manifest = new Manifest(input);
+
+            Attributes mainAttrs = manifest.getMainAttributes();
+
+            mainAttrs.putValue("Fabric-Mapping-Namespace", toNs);
+
+            // Fix all the stuff tiny-remapper would normally do
+            mainAttrs.remove(Attributes.Name.SIGNATURE_VERSION);
+            manifest.getEntries().values().forEach(it -> {
+                it.entrySet().removeIf(e -> {
+                    var name = e.getKey().toString();
+                    return name.endsWith("-Digest") || name.contains("-Digest-") || name.equals("Magic");
+                });
+            });
+            manifest.getEntries().values().removeIf(Attributes::isEmpty);
+
+            manifest.write(output);
+        }));
+
+        RawZip.Reader reader;
+        try {
+            reader = new RawZip.Reader(target.source);
+        } catch (ZipException e) {
+            LOGGER.fine("Falling back to slower remapping for " + target.source + ": " + e.getMessage());
+            var path = new OutputConsumerPath.Builder(target.target).assumeArchive(true).build();
+            paths.add(path);
+            path.addNonClassFiles(target.source, tinyRemapper, List.of(transforms, MetaInfFixer.INSTANCE));
+            tinyRemapper.apply(path, tag);
+            return;
+        }
+        try (reader) {
+            writeRemapped(target, tag, tinyRemapper, transforms, reader);
+        }
+    }
+
+    /**
+     * Writes a remapped jar, copying non-class entries which need no changes as raw compressed data. Anything that would
+     * be touched by {@link MetaInfFixer} is handled as it would be there.
+     */
+    private static void writeRemapped(Target target, InputTag tag, TinyRemapper tinyRemapper, ZipTransforms transforms, RawZip.Reader reader) throws IOException {
+        Map<String, byte[]> classes = new ConcurrentSkipListMap<>();
+        tinyRemapper.apply((name, bytes) -> classes.put(name + ".class", bytes), tag);
+        var remapper = tinyRemapper.getEnvironment().getRemapper();
+
+        Files.createDirectories(target.target.getParent());
+        try (var writer = new RawZip.Writer(target.target)) {
+            for (var entry : reader.entries()) {
+                var name = entry.name();
+                if (name.endsWith(".class") || isSignatureFile(name)) {
+                    continue;
+                }
+                if (transforms.handles(name)) {
+                    try (var input = reader.open(entry)) {
+                        writer.write(name, entry.dosTime(), entry.dosDate(), output -> transforms.transform(name, input, output));
+                    }
+                } else if (isServiceFile(name)) {
+                    var service = name.substring(SERVICES_PREFIX.length());
+                    var mappedName = SERVICES_PREFIX + remapper.map(service.replace('.', '/')).replace('/', '.');
+                    writer.write(mappedName, entry.dosTime(), entry.dosDate(), remapServiceFile(reader.readAllBytes(entry), remapper));
+                } else {
+                    writer.copy(reader, entry);
+                }
+            }
+            for (var entry : classes.entrySet()) {
+                writer.write(entry.getKey(), RawZip.CONSTANT_DOS_TIME, RawZip.CONSTANT_DOS_DATE, entry.getValue());
+            }
+        }
+    }
+
+    private static final String SERVICES_PREFIX = "META-INF/services/";
+
+    private static boolean isSignatureFile(String name) {
+        if (!name.startsWith("META-INF/") || name.indexOf('/', "META-INF/".length()) != -1) {
+            return false;
+        }
+        var fileName = name.substring("META-INF/".length());
+        return fileName.endsWith(".SF") || fileName.endsWith(".DSA") || fileName.endsWith(".RSA") || fileName.startsWith("SIG-");
+    }
+
+    private static boolean isServiceFile(String name) {
+        return name.startsWith(SERVICES_PREFIX) && name.length() > SERVICES_PREFIX.length() && name.indexOf('/', SERVICES_PREFIX.length()) == -1;
+    }
+
+    private static byte[] remapServiceFile(byte[] contents, Remapper remapper) {
+        var out = new StringBuilder();
+        for (var line : new String(contents, StandardCharsets.UTF_8).split("\\R")) {
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (!line.isEmpty()) {
+                out.append(remapper.map(line.replace('.', '/')).replace('/', '.')).append('\n');
+            }
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * {@return a key capturing every input to remapping besides the jar being remapped and its classpath}
+     */
+    private String sharedCacheKey(Set<String> knownIndyBsm, @Nullable String mappingsHash) throws IOException {
+        var key = new RemapCache.Key()
+            .put(fromNs)
+            .put(toNs)
+            .put(Boolean.toString(stripNestedJars))
+            // Reused from loading the mappings where possible, so that the text is not read and hashed twice
+            .put(mappingsHash != null ? mappingsHash : RemapCache.hash(mappingsFile))
+            .put(String.join(",", knownIndyBsm));
+        for (var path : interfaceInjections) {
+            key.put(RemapCache.hash(path));
+        }
+        for (var path : includeJars) {
+            key.put(RemapCache.hash(path));
+        }
+        return key.build();
+    }
+
     private IMappingProvider mappingProvider(IMappingFile mappings) {
         return acceptor -> {
             mappings.getClasses().forEach(iClass -> {
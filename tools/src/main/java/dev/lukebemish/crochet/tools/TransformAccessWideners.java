@@ -19,12 +19,13 @@
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.jar.JarFile;
 
 @CommandLine.Command(
@@ -60,6 +61,12 @@ class TransformAccessWideners implements Runnable {
     )
     File targetFile;
 
+    @CommandLine.Option(
+        names = "--mappings-cache-dir",
+        description = "Directory to cache parsed mappings in, keyed by their contents"
+    )
+    @Nullable Path mappingsCacheDir;
+
     private sealed interface Target {
         record Class(String name) implements Target {}
         record Field(String owner, String name, String descriptor) implements Target {}
@@ -75,9 +82,8 @@ private enum Visibility {
 
     @Override
     public void run() {
-        try (var mappingsStream = Files.newInputStream(mappingsFile);
-             var targetZip = new JarFile(targetFile)) {
-            IMappingFile mappings = IMappingFile.load(mappingsStream);
+        try (var targetZip = new JarFile(targetFile)) {
+            IMappingFile mappings = MappingsCache.load(mappingsFile, mappingsCacheDir).mappings();
 
             var lines = new ArrayList<String>();
             var atWriter = new AccessWidenerVisitor() {
@@ -85,44 +91,61 @@ public void run() {
 
                 record MethodState(Visibility visibility, boolean isStatic, boolean isInterface) {}
 
-                private @Nullable MethodState stateOfMethod(String owner, String targetName, String targetDescriptor) {
-                    var entry = targetZip.getEntry(owner + ".class");
-                    if (entry == null) {
-                        return null;
-                    }
-                    AtomicReference<Visibility> visibility = new AtomicReference<>();
-                    AtomicBoolean isStatic = new AtomicBoolean();
-                    AtomicBoolean isInterface = new AtomicBoolean();
-                    ClassVisitor visitor = new ClassVisitor(Opcodes.ASM9) {
-                        @Override
-                        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
-                            isInterface.setPlain((access & Opcodes.ACC_INTERFACE) != 0);
+                record ClassMethods(boolean isInterface, Map<String, Integer> methodAccess) {}
+
+                // Each owner is read once, on first use, rather than once per widened method
+                private final Map<String, Optional<ClassMethods>> methodIndex = new HashMap<>();
+
+                private @Nullable ClassMethods methodsOf(String owner) {
+                    return methodIndex.computeIfAbsent(owner, k -> {
+                        var entry = targetZip.getEntry(owner + ".class");
+                        if (entry == null) {
+                            return Optional.empty();
                         }
+                        AtomicBoolean isInterface = new AtomicBoolean();
+                        Map<String, Integer> methodAccess = new HashMap<>();
+                        ClassVisitor visitor = new ClassVisitor(Opcodes.ASM9) {
+                            @Override
+                            public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                                isInterface.setPlain((access & Opcodes.ACC_INTERFACE) != 0);
+                            }
 
-                        @Override
-                        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
-                            if (name.equals(targetName) && descriptor.equals(targetDescriptor)) {
-                                if ((access & Opcodes.ACC_PUBLIC) != 0) {
-                                    visibility.setPlain(Visibility.PUBLIC);
-                                } else if ((access & Opcodes.ACC_PROTECTED) != 0) {
-                                    visibility.setPlain(Visibility.PROTECTED);
-                                } else if ((access & Opcodes.ACC_PRIVATE) != 0) {
-                                    visibility.setPlain(Visibility.PRIVATE);
-                                } else {
-                                    visibility.setPlain(Visibility.PACKAGE_PRIVATE);
-                                }
-                                isStatic.setPlain((access & Opcodes.ACC_STATIC) != 0);
+                            @Override
+                            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                                methodAccess.putIfAbsent(name + descriptor, access);
+                                return null;
                             }
-                            return super.visitMethod(access, name, descriptor, signature, exceptions);
+                        };
+                        try (var stream = targetZip.getInputStream(entry)) {
+                            ClassReader reader = new ClassReader(stream);
+                            reader.accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
                         }
-                    };
-                    try (var stream = targetZip.getInputStream(entry)) {
-                        ClassReader reader = new ClassReader(stream);
-                        reader.accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG);
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
+                        return Optional.of(new ClassMethods(isInterface.getPlain(), methodAccess));
+                    }).orElse(null);
+                }
+
+                private @Nullable MethodState stateOfMethod(String owner, String targetName, String targetDescriptor) {
+                    var methods = methodsOf(owner);
+                    if (methods == null) {
+                        return null;
+                    }
+                    var access = methods.methodAccess().get(targetName + targetDescriptor);
+                    if (access == null) {
+                        return new MethodState(null, false, methods.isInterface());
                     }
-                    return new MethodState(visibility.getPlain(), isStatic.getPlain(), isInterface.getPlain());
+                    Visibility visibility;
+                    if ((access & Opcodes.ACC_PUBLIC) != 0) {
+                        visibility = Visibility.PUBLIC;
+                    } else if ((access & Opcodes.ACC_PROTECTED) != 0) {
+                        visibility = Visibility.PROTECTED;
+                    } else if ((access & Opcodes.ACC_PRIVATE) != 0) {
+                        visibility = Visibility.PRIVATE;
+                    } else {
+                        visibility = Visibility.PACKAGE_PRIVATE;
+                    }
+                    return new MethodState(visibility, (access & Opcodes.ACC_STATIC) != 0, methods.isInterface());
                 }
 
                 public void processAll() {
@@ -196,22 +219,22 @@ public void visitMethod(String owner, String name, String descriptor, AccessWide
 
             AccessWidenerRemapper awRemapper = new AccessWidenerRemapper(
                 atWriter,
-                Utils.remapperForFile(mappings),
+                new CompiledRemapper(mappings),
                 "intermediary",
                 "named"
             );
 
             for (var input : inputs) {
-                var bytes = Files.readAllBytes(input);
-                var header = AccessWidenerReader.readHeader(bytes);
-                AccessWidenerVisitor visitor;
-                if (header.getNamespace().equals("intermediary")) {
-                    visitor = awRemapper;
-                } else {
-                    visitor = atWriter;
+                try (var reader = AccessWideners.reader(input)) {
+                    var header = AccessWideners.peekHeader(reader);
+                    AccessWidenerVisitor visitor;
+                    if (header.getNamespace().equals("intermediary")) {
+                        visitor = awRemapper;
+                    } else {
+                        visitor = atWriter;
+                    }
+                    AccessWideners.read(reader, visitor);
                 }
-                AccessWidenerReader reader = new AccessWidenerReader(visitor);
-                reader.read(bytes);
             }
 
             atWriter.processAll();
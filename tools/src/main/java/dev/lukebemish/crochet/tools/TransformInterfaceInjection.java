@@ -3,6 +3,7 @@
 import com.google.gson.JsonObject;
 import dev.lukebemish.taskgraphrunner.signatures.TypeSignature;
 import net.neoforged.srgutils.IMappingFile;
+import org.jspecify.annotations.Nullable;
 import org.objectweb.asm.commons.Remapper;
 import picocli.CommandLine;
 
@@ -49,6 +50,12 @@ class TransformInterfaceInjection implements Runnable {
     )
     Path mappingsFile;
 
+    @CommandLine.Option(
+        names = "--mappings-cache-dir",
+        description = "Directory to cache parsed mappings in, keyed by their contents"
+    )
+    @Nullable Path mappingsCacheDir;
+
     @Override
     public void run() {
         try {
@@ -66,11 +73,8 @@ public void run() {
                     }
                 }
             }
-            IMappingFile mappings;
-            try (var mappingsStream = Files.newInputStream(mappingsFile)) {
-                mappings = IMappingFile.load(mappingsStream);
-            }
-            var remapper = Utils.remapperForFile(mappings);
+            IMappingFile mappings = MappingsCache.load(mappingsFile, mappingsCacheDir).mappings();
+            var remapper = new CompiledRemapper(mappings);
             for (var fabricInput : inputs) {
                 try (var reader = Files.newBufferedReader(fabricInput)) {
                     var json = Utils.GSON.fromJson(reader, JsonObject.class);
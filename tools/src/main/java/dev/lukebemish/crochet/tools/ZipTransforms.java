@@ -2,20 +2,31 @@
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import net.fabricmc.tinyremapper.OutputConsumerPath;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
@@ -30,9 +41,17 @@ public void transform(Path destinationDirectory, Path relativePath, InputStream
         Path outputFile = destinationDirectory.resolve(relativePath.toString());
         Path outputDir = outputFile.getParent();
         Files.createDirectories(outputDir);
-        var transform = transforms.get(relativePath.toString());
-        byte[] transformed = transform.apply(input.readAllBytes());
-        Files.write(outputFile, transformed);
+        try (var output = Files.newOutputStream(outputFile)) {
+            transform(relativePath.toString(), input, output);
+        }
+    }
+
+    boolean handles(String name) {
+        return transforms.containsKey(name);
+    }
+
+    void transform(String name, InputStream input, OutputStream output) throws IOException {
+        transforms.get(name).transform(input, output);
     }
 
     interface IoUnaryOperator<T> {
@@ -44,9 +63,17 @@ public void transform(Path destinationDirectory, Path relativePath, InputStream
         byte[] serialize(T t) throws IOException;
     }
 
+    /**
+     * Transforms an entry as it is streamed from the input to the output, without holding the whole entry in memory.
+     * Implementations should not close either stream.
+     */
+    interface StreamTransform {
+        void transform(InputStream input, OutputStream output) throws IOException;
+    }
+
     private static final Gson GSON = new GsonBuilder().setStrictness(Strictness.LENIENT).create();
 
-    private final Map<String, IoUnaryOperator<byte[]>> transforms = new HashMap<>();
+    private final Map<String, StreamTransform> transforms = new HashMap<>();
 
     private ZipTransforms() {}
 
@@ -55,6 +82,14 @@ static ZipTransforms create() {
     }
 
     ZipTransforms with(Map<String, IoUnaryOperator<byte[]>> additional) {
+        for (Map.Entry<String, IoUnaryOperator<byte[]>> entry : additional.entrySet()) {
+            var operator = entry.getValue();
+            transforms.put(entry.getKey(), (input, output) -> output.write(operator.apply(input.readAllBytes())));
+        }
+        return this;
+    }
+
+    ZipTransforms withStreaming(Map<String, StreamTransform> additional) {
         transforms.putAll(additional);
         return this;
     }
@@ -70,8 +105,7 @@ <T> ZipTransforms withMapped(Map<String, IoUnaryOperator<T>> additional, SerDe<T
             }
         }
 
-        this.transforms.putAll(newTransforms);
-        return this;
+        return with(newTransforms);
     }
 
     ZipTransforms withJson(Map<String, IoUnaryOperator<JsonObject>> additional) {
@@ -89,7 +123,164 @@ public byte[] serialize(JsonObject jsonObject) {
         return this;
     }
 
+    /**
+     * Adds transforms that edit members of a top-level JSON object while streaming it. Only the values of members with
+     * an edit are read into memory; each edit receives the existing value, or {@code null} if the member is absent, and
+     * returns the new value, or {@code null} to remove the member. Members an edit adds are written at the end of the
+     * object. Inputs which are not a JSON object are copied unchanged.
+     */
+    ZipTransforms withJsonMembers(Map<String, Map<String, IoUnaryOperator<JsonElement>>> additional) {
+        for (Map.Entry<String, Map<String, IoUnaryOperator<JsonElement>>> entry : additional.entrySet()) {
+            var edits = entry.getValue();
+            transforms.put(entry.getKey(), (input, output) -> editJsonMembers(input, output, edits));
+        }
+        return this;
+    }
+
+    private static void editJsonMembers(InputStream input, OutputStream output, Map<String, IoUnaryOperator<JsonElement>> edits) throws IOException {
+        var reader = new JsonReader(new InputStreamReader(nonClosing(input), StandardCharsets.UTF_8));
+        reader.setStrictness(Strictness.LENIENT);
+        var writer = new JsonWriter(new OutputStreamWriter(nonClosing(output), StandardCharsets.UTF_8));
+        writer.setStrictness(Strictness.LENIENT);
+        try (reader; writer) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                copyValue(reader, writer);
+                return;
+            }
+            var pending = new LinkedHashMap<>(edits);
+            reader.beginObject();
+            writer.beginObject();
+            while (reader.hasNext()) {
+                var name = reader.nextName();
+                var edit = pending.remove(name);
+                if (edit == null) {
+                    writer.name(name);
+                    copyValue(reader, writer);
+                } else {
+                    var edited = edit.apply(JsonParser.parseReader(reader));
+                    if (edited != null) {
+                        writer.name(name);
+                        GSON.toJson(edited, writer);
+                    }
+                }
+            }
+            for (var remaining : pending.entrySet()) {
+                var added = remaining.getValue().apply(null);
+                if (added != null) {
+                    writer.name(remaining.getKey());
+                    GSON.toJson(added, writer);
+                }
+            }
+            reader.endObject();
+            writer.endObject();
+        }
+    }
+
+    private static void copyValue(JsonReader reader, JsonWriter writer) throws IOException {
+        int depth = 0;
+        do {
+            switch (reader.peek()) {
+                case BEGIN_ARRAY -> {
+                    reader.beginArray();
+                    writer.beginArray();
+                    depth++;
+                }
+                case END_ARRAY -> {
+                    reader.endArray();
+                    writer.endArray();
+                    depth--;
+                }
+                case BEGIN_OBJECT -> {
+                    reader.beginObject();
+                    writer.beginObject();
+                    depth++;
+                }
+                case END_OBJECT -> {
+                    reader.endObject();
+                    writer.endObject();
+                    depth--;
+                }
+                case NAME -> writer.name(reader.nextName());
+                case STRING -> writer.value(reader.nextString());
+                // Numbers are passed through verbatim so that no precision is lost
+                case NUMBER -> writer.jsonValue(reader.nextString());
+                case BOOLEAN -> writer.value(reader.nextBoolean());
+                case NULL -> {
+                    reader.nextNull();
+                    writer.nullValue();
+                }
+                case END_DOCUMENT -> {
+                    return;
+                }
+            }
+        } while (depth > 0);
+    }
+
+    private static InputStream nonClosing(InputStream input) {
+        return new FilterInputStream(input) {
+            @Override
+            public void close() {}
+        };
+    }
+
+    private static OutputStream nonClosing(OutputStream output) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                output.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                output.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                output.flush();
+            }
+        };
+    }
+
+    /**
+     * Applies the transforms to a zip file in place. Only transformed entries are decompressed; everything else is
+     * copied as raw compressed data.
+     * @return the number of entries transformed
+     */
     int execute(Path zipPath) throws IOException {
+        RawZip.Reader reader;
+        try {
+            reader = new RawZip.Reader(zipPath);
+        } catch (ZipException e) {
+            return executeStreaming(zipPath);
+        }
+
+        int replacedCount = 0;
+        var tempFile = Files.createTempFile(zipPath.toAbsolutePath().getParent(), "crochet", ".zip");
+        try {
+            try (reader; var writer = new RawZip.Writer(tempFile)) {
+                for (var entry : reader.entries()) {
+                    var name = entry.name();
+                    var transform = transforms.get(name);
+                    if (transform != null) {
+                        try (var input = reader.open(entry)) {
+                            writer.write(name, entry.dosTime(), entry.dosDate(), output -> transform.transform(input, output));
+                        }
+                        replacedCount++;
+                    } else {
+                        writer.copy(reader, entry);
+                    }
+                }
+            }
+            Files.move(tempFile, zipPath, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+
+        return replacedCount;
+    }
+
+    private int executeStreaming(Path zipPath) throws IOException {
         int replacedCount = 0;
 
         var tempFile = Files.createTempFile("crochet", ".zip");
@@ -98,12 +289,7 @@ int execute(Path zipPath) throws IOException {
              ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(tempFile))) {
             ZipEntry entry;
             while ((entry = zip.getNextEntry()) != null) {
-                byte[] data = zip.readAllBytes();
                 String name = entry.getName();
-                if (transforms.containsKey(name)) {
-                    data = transforms.get(name).apply(data);
-                    replacedCount++;
-                }
 
                 var outEntry = new ZipEntry(name);
                 if (entry.getComment() != null) {
@@ -123,7 +309,13 @@ int execute(Path zipPath) throws IOException {
                 }
 
                 out.putNextEntry(outEntry);
-                out.write(data);
+                var transform = transforms.get(name);
+                if (transform != null) {
+                    transform.transform(zip, out);
+                    replacedCount++;
+                } else {
+                    zip.transferTo(out);
+                }
                 out.closeEntry();
             }
         }
@@ -0,0 +1,280 @@
+package dev.lukebemish.crochet.tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Round trips through {@link RawZip}, checked against {@link java.util.zip}.
+ */
+class RawZipTest {
+    private static final Charset IBM437 = Charset.forName("IBM437");
+    private static final byte[] TEXT = "Hello, zip!\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void copiesStoredAndDeflatedEntries() throws IOException {
+        var input = directory.resolve("input.zip");
+        try (var zip = new ZipOutputStream(Files.newOutputStream(input))) {
+            zip.putNextEntry(stored("stored.txt", TEXT));
+            zip.write(TEXT);
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("deflated.txt"));
+            zip.write(TEXT);
+            zip.closeEntry();
+        }
+
+        var output = copy(input);
+
+        try (var reader = new RawZip.Reader(input)) {
+            var entries = reader.entries();
+            assertEquals(2, entries.size());
+            assertEquals(RawZip.STORED, entries.get(0).method());
+            assertEquals(RawZip.DEFLATED, entries.get(1).method());
+            for (var entry : entries) {
+                assertArrayEquals(TEXT, reader.readAllBytes(entry));
+            }
+        }
+        try (var zip = new ZipFile(output.toFile())) {
+            assertEquals(ZipEntry.STORED, zip.getEntry("stored.txt").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zip.getEntry("deflated.txt").getMethod());
+            assertArrayEquals(TEXT, zip.getInputStream(zip.getEntry("stored.txt")).readAllBytes());
+            assertArrayEquals(TEXT, zip.getInputStream(zip.getEntry("deflated.txt")).readAllBytes());
+        }
+    }
+
+    @Test
+    void copyDropsDataDescriptors() throws IOException {
+        var input = directory.resolve("input.zip");
+        // Deflated entries streamed without known sizes are followed by a data descriptor
+        try (var zip = new ZipOutputStream(Files.newOutputStream(input))) {
+            zip.putNextEntry(new ZipEntry("described.txt"));
+            zip.write(TEXT);
+            zip.closeEntry();
+        }
+        try (var reader = new RawZip.Reader(input)) {
+            assertNotEquals(0, reader.entries().getFirst().flags() & (1 << 3));
+        }
+
+        var output = copy(input);
+
+        try (var reader = new RawZip.Reader(output)) {
+            assertEquals(0, reader.entries().getFirst().flags() & (1 << 3));
+        }
+        // Without a data descriptor, a streaming reader relies on the sizes in the local header
+        try (var zip = new ZipInputStream(Files.newInputStream(output))) {
+            var entry = zip.getNextEntry();
+            assertNotNull(entry);
+            assertEquals("described.txt", entry.getName());
+            assertArrayEquals(TEXT, zip.readAllBytes());
+            assertNull(zip.getNextEntry());
+        }
+    }
+
+    @Test
+    void decodesNamesByTheirFlag() throws IOException {
+        var flagged = directory.resolve("flagged.zip");
+        try (var zip = new ZipOutputStream(Files.newOutputStream(flagged), StandardCharsets.UTF_8)) {
+            zip.putNextEntry(new ZipEntry("café/über.txt"));
+            zip.closeEntry();
+        }
+        var legacy = directory.resolve("legacy.zip");
+        try (var zip = new ZipOutputStream(Files.newOutputStream(legacy), IBM437)) {
+            zip.putNextEntry(new ZipEntry("café/über.txt"));
+            zip.closeEntry();
+        }
+
+        try (var reader = new RawZip.Reader(flagged)) {
+            var entry = reader.entries().getFirst();
+            assertNotEquals(0, entry.flags() & (1 << 11));
+            assertEquals("café/über.txt", entry.name());
+        }
+        try (var reader = new RawZip.Reader(legacy)) {
+            var entry = reader.entries().getFirst();
+            assertEquals(0, entry.flags() & (1 << 11));
+            assertEquals("café/über.txt", entry.name());
+        }
+    }
+
+    @Test
+    void copyKeepsRawNameBytes() throws IOException {
+        var input = directory.resolve("input.zip");
+        var name = "café.txt";
+        try (var zip = new ZipOutputStream(Files.newOutputStream(input), IBM437)) {
+            zip.putNextEntry(new ZipEntry(name));
+            zip.write(TEXT);
+            zip.closeEntry();
+        }
+
+        var output = copy(input);
+
+        try (var reader = new RawZip.Reader(output)) {
+            var entry = reader.entries().getFirst();
+            assertArrayEquals(name.getBytes(IBM437), entry.rawName());
+            assertEquals(name, entry.name());
+        }
+        try (var zip = new ZipFile(output.toFile(), IBM437)) {
+            var entry = zip.getEntry(name);
+            assertNotNull(entry);
+            assertArrayEquals(TEXT, zip.getInputStream(entry).readAllBytes());
+        }
+    }
+
+    @Test
+    void writePatchesCrcAndSizes() throws IOException {
+        var data = new byte[1 << 20];
+        new Random(0).nextBytes(data);
+        var crc = new CRC32();
+        crc.update(data);
+
+        var output = directory.resolve("output.zip");
+        try (var writer = new RawZip.Writer(output)) {
+            writer.write("streamed.bin", RawZip.CONSTANT_DOS_TIME, RawZip.CONSTANT_DOS_DATE, stream -> {
+                for (int i = 0; i < data.length; i += 1000) {
+                    stream.write(data, i, Math.min(1000, data.length - i));
+                }
+            });
+            writer.write("small.txt", RawZip.CONSTANT_DOS_TIME, RawZip.CONSTANT_DOS_DATE, TEXT);
+        }
+
+        try (var zip = new ZipFile(output.toFile())) {
+            var entry = zip.getEntry("streamed.bin");
+            assertEquals(crc.getValue(), entry.getCrc());
+            assertEquals(data.length, entry.getSize());
+            assertArrayEquals(data, zip.getInputStream(entry).readAllBytes());
+            assertArrayEquals(TEXT, zip.getInputStream(zip.getEntry("small.txt")).readAllBytes());
+        }
+        // A streaming reader checks the local header's sizes and CRC, which are patched in once the entry is written
+        try (var zip = new ZipInputStream(Files.newInputStream(output))) {
+            var entry = zip.getNextEntry();
+            assertNotNull(entry);
+            assertEquals(crc.getValue(), entry.getCrc());
+            assertEquals(data.length, entry.getSize());
+            assertArrayEquals(data, zip.readAllBytes());
+            assertNotNull(zip.getNextEntry());
+            assertArrayEquals(TEXT, zip.readAllBytes());
+        }
+    }
+
+    @Test
+    void rejectsZip64Archives() throws IOException {
+        var input = directory.resolve("input.zip");
+        // More entries than the end of central directory record can count
+        try (var zip = new ZipOutputStream(Files.newOutputStream(input))) {
+            for (int i = 0; i < 0x10000; i++) {
+                zip.putNextEntry(stored("entry" + i, new byte[0]));
+                zip.closeEntry();
+            }
+            zip.putNextEntry(new ZipEntry("data.txt"));
+            zip.write(TEXT);
+            zip.closeEntry();
+        }
+
+        assertThrows(ZipException.class, () -> new RawZip.Reader(input));
+
+        // Transforms then fall back to java.util.zip
+        var transformed = ZipTransforms.create()
+            .with(Map.of("data.txt", bytes -> "replaced".getBytes(StandardCharsets.UTF_8)))
+            .execute(input);
+        assertEquals(1, transformed);
+        try (var zip = new ZipFile(input.toFile())) {
+            assertEquals(0x10001, zip.size());
+            assertArrayEquals("replaced".getBytes(StandardCharsets.UTF_8), zip.getInputStream(zip.getEntry("data.txt")).readAllBytes());
+        }
+    }
+
+    @Test
+    void rejectsEncryptedArchives() throws IOException {
+        var input = directory.resolve("input.zip");
+        try (var zip = new ZipOutputStream(Files.newOutputStream(input))) {
+            zip.putNextEntry(new ZipEntry("secret.txt"));
+            zip.write(TEXT);
+            zip.closeEntry();
+        }
+        // Set the encryption flag in the central directory, which is all the reader looks at
+        var bytes = Files.readAllBytes(input);
+        int central = lastIndexOf(bytes, new byte[] {0x50, 0x4b, 0x01, 0x02});
+        try (var file = new RandomAccessFile(input.toFile(), "rw")) {
+            file.seek(central + 8);
+            file.write(bytes[central + 8] | 1);
+        }
+
+        var e = assertThrows(ZipException.class, () -> new RawZip.Reader(input));
+        assertEquals("Encrypted archives are not supported", e.getMessage());
+    }
+
+    @Test
+    void rejectsPrefixedArchives() throws IOException {
+        var plain = directory.resolve("plain.zip");
+        try (var zip = new ZipOutputStream(Files.newOutputStream(plain))) {
+            zip.putNextEntry(new ZipEntry("data.txt"));
+            zip.write(TEXT);
+            zip.closeEntry();
+        }
+        var input = directory.resolve("input.zip");
+        try (var output = Files.newOutputStream(input)) {
+            output.write("#!/bin/sh\n".getBytes(StandardCharsets.UTF_8));
+            output.write(Files.readAllBytes(plain));
+        }
+
+        var e = assertThrows(ZipException.class, () -> new RawZip.Reader(input));
+        assertEquals("Archives with prefixed data are not supported", e.getMessage());
+    }
+
+    private Path copy(Path input) throws IOException {
+        var output = directory.resolve("copied-" + input.getFileName());
+        try (var reader = new RawZip.Reader(input); var writer = new RawZip.Writer(output)) {
+            for (var entry : reader.entries()) {
+                writer.copy(reader, entry);
+            }
+        }
+        return output;
+    }
+
+    private static ZipEntry stored(String name, byte[] data) {
+        var entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(data.length);
+        entry.setCompressedSize(data.length);
+        var crc = new CRC32();
+        crc.update(data);
+        entry.setCrc(crc.getValue());
+        return entry;
+    }
+
+    private static int lastIndexOf(byte[] bytes, byte[] pattern) {
+        outer:
+        for (int i = bytes.length - pattern.length; i >= 0; i--) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new IllegalArgumentException("Pattern not found");
+    }
+}